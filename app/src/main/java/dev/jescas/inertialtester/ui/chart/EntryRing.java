@@ -0,0 +1,152 @@
+package dev.jescas.inertialtester.ui.chart;
+
+import com.github.mikephil.charting.data.Entry;
+
+import java.util.AbstractList;
+
+/**
+ * Fixed capacity, read-only list of the last entries of a rolling chart.
+ * Appending reuses the Entry object of the oldest sample and never shifts
+ * or renumbers the others: X values keep increasing and the chart viewport
+ * moves instead. The window min/max of Y are tracked with monotonic queues,
+ * so every operation is O(1) (amortized for Append).
+ */
+public class EntryRing extends AbstractList<Entry> {
+    private final Entry[] entries;
+    private int head;     // Slot of the oldest entry
+    private int size;
+    private long appended; // Entries appended so far, index of the next one
+
+    // Indices of the window min/max candidates, values monotonic from the front
+    private final IndexQueue minQueue;
+    private final IndexQueue maxQueue;
+
+    public EntryRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        entries = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+        }
+        minQueue = new IndexQueue(capacity);
+        maxQueue = new IndexQueue(capacity);
+    }
+
+    public int GetCapacity() {
+        return entries.length;
+    }
+
+    // Add a sample, replacing the oldest one when full. X must not decrease.
+    public void Append(float x, float y) {
+        long index = appended++;
+        long oldest = index - entries.length; // Leaves the window now
+        while (!minQueue.IsEmpty() && minQueue.Front() <= oldest) {
+            minQueue.PopFront();
+        }
+        while (!maxQueue.IsEmpty() && maxQueue.Front() <= oldest) {
+            maxQueue.PopFront();
+        }
+
+        int slot = (int) (index % entries.length);
+        entries[slot].setX(x);
+        entries[slot].setY(y);
+        if (size < entries.length) {
+            size++;
+        } else {
+            head = (head + 1) % entries.length;
+        }
+
+        while (!minQueue.IsEmpty() && YOf(minQueue.Back()) >= y) {
+            minQueue.PopBack();
+        }
+        minQueue.PushBack(index);
+        while (!maxQueue.IsEmpty() && YOf(maxQueue.Back()) <= y) {
+            maxQueue.PopBack();
+        }
+        maxQueue.PushBack(index);
+    }
+
+    public void Clear() {
+        head = 0;
+        size = 0;
+        appended = 0;
+        minQueue.Clear();
+        maxQueue.Clear();
+    }
+
+    private float YOf(long index) {
+        return entries[(int) (index % entries.length)].getY();
+    }
+
+    public float GetMinY() {
+        return YOf(minQueue.Front());
+    }
+
+    public float GetMaxY() {
+        return YOf(maxQueue.Front());
+    }
+
+    public float GetMinX() {
+        return get(0).getX();
+    }
+
+    public float GetMaxX() {
+        return get(size - 1).getX();
+    }
+
+    @Override
+    public Entry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return entries[(head + index) % entries.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Bounded double ended queue of sample indices
+    private static class IndexQueue {
+        private final long[] items;
+        private int front;
+        private int count;
+
+        IndexQueue(int capacity) {
+            items = new long[capacity];
+        }
+
+        boolean IsEmpty() {
+            return count == 0;
+        }
+
+        long Front() {
+            return items[front];
+        }
+
+        long Back() {
+            return items[(front + count - 1) % items.length];
+        }
+
+        void PushBack(long index) {
+            items[(front + count) % items.length] = index;
+            count++;
+        }
+
+        void PopFront() {
+            front = (front + 1) % items.length;
+            count--;
+        }
+
+        void PopBack() {
+            count--;
+        }
+
+        void Clear() {
+            front = 0;
+            count = 0;
+        }
+    }
+}
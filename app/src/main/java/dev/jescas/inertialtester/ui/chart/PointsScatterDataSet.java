@@ -0,0 +1,38 @@
+package dev.jescas.inertialtester.ui.chart;
+
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.ScatterDataSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ScatterDataSet whose content is replaced as a whole by an already X-sorted
+ * point set, e.g. a viewport query of a TrajectoryStore. Entry objects are
+ * pooled and reused between updates.
+ */
+public class PointsScatterDataSet extends ScatterDataSet {
+    private final List<Entry> pool = new ArrayList<>();
+
+    public PointsScatterDataSet(String label) {
+        super(new ArrayList<Entry>(), label);
+    }
+
+    /**
+     * @param xs X of the points, sorted ascending
+     * @param ys Y of the points
+     */
+    public void SetPoints(float[] xs, float[] ys, int count) {
+        while (pool.size() < count) {
+            pool.add(new Entry());
+        }
+        mValues.clear();
+        for (int i = 0; i < count; i++) {
+            Entry entry = pool.get(i);
+            entry.setX(xs[i]);
+            entry.setY(ys[i]);
+            mValues.add(entry);
+        }
+        calcMinMax();
+    }
+}
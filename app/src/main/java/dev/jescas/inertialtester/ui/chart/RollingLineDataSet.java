@@ -0,0 +1,37 @@
+package dev.jescas.inertialtester.ui.chart;
+
+import com.github.mikephil.charting.data.LineDataSet;
+
+/**
+ * LineDataSet over an {@link EntryRing}: appending a sample and refreshing
+ * the chart data are O(1) whatever the capacity, so the rolling charts can
+ * keep thousands of samples. Entries are added with {@link #Append} only,
+ * the List based addEntry/removeEntry methods are not supported.
+ */
+public class RollingLineDataSet extends LineDataSet {
+
+    public RollingLineDataSet(int capacity, String label) {
+        super(new EntryRing(capacity), label);
+    }
+
+    public void Append(float x, float y) {
+        ((EntryRing) mValues).Append(x, y);
+    }
+
+    public void Clear() {
+        ((EntryRing) mValues).Clear();
+    }
+
+    // Called by ChartData.notifyDataChanged(), reads the tracked bounds instead of scanning
+    @Override
+    public void calcMinMax() {
+        EntryRing ring = (EntryRing) mValues;
+        if (ring == null || ring.isEmpty()) {
+            return;
+        }
+        mXMin = ring.GetMinX();
+        mXMax = ring.GetMaxX();
+        mYMin = ring.GetMinY();
+        mYMax = ring.GetMaxY();
+    }
+}
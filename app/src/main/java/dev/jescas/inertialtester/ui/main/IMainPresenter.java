@@ -2,9 +2,14 @@ package dev.jescas.inertialtester.ui.main;
 
 import android.content.Context;
 import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
 
 import java.util.EventListener;
 
 public interface IMainPresenter extends SensorEventListener {
      void EnableRecord(boolean enable);
+     // Register the sensor listeners, events are processed off the main thread
+     void Start(SensorManager sensorManager);
+     // Unregister the listeners, finish any recording and stop processing
+     void Stop();
 }
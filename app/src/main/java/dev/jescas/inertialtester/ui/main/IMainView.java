@@ -2,12 +2,13 @@ package dev.jescas.inertialtester.ui.main;
 
 import android.content.Context;
 
-import org.ejml.data.FMatrix3;
 import org.ejml.simple.SimpleMatrix;
 
 public interface IMainView {
      void OnRecordFinished(String filepath);
     Context getBaseContext();
-    void AddEntriesChart(FMatrix3 orientation, double raw);
-    void UpdateTextUI(double acc, int steps, double heading, double position, double velocity);
+    // One frame worth of samples, the first count values of every array
+    void AddEntriesChart(float[] roll, float[] pitch, float[] yaw, float[] acceleration, int count);
+    // Dead reckoning positions of the steps taken since the last call, the first count values
+    void AddTrajectoryPoints(float[] x, float[] y, int count);
 }
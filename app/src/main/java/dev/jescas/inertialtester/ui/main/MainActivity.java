@@ -1,7 +1,6 @@
 package dev.jescas.inertialtester.ui.main;
 
 import android.graphics.Color;
-import android.hardware.Sensor;
 import android.hardware.SensorManager;
 import android.os.Bundle;
 import android.view.View;
@@ -16,22 +15,21 @@ import com.github.mikephil.charting.charts.ScatterChart;
 import com.github.mikephil.charting.components.XAxis;
 import com.github.mikephil.charting.components.YAxis;
 import com.github.mikephil.charting.data.CombinedData;
-import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.data.ScatterData;
-import com.github.mikephil.charting.data.ScatterDataSet;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.github.mikephil.charting.utils.ColorTemplate;
-import com.github.mikephil.charting.utils.EntryXComparator;
 
-import org.ejml.data.FMatrix3;
 import org.ejml.simple.SimpleMatrix;
 
 
 import java.util.Collections;
 
+import dev.jescas.inertialtester.core.trajectory.TrajectoryStore;
 import dev.jescas.inertialtester.databinding.ActivityMainBinding;
+import dev.jescas.inertialtester.ui.chart.PointsScatterDataSet;
+import dev.jescas.inertialtester.ui.chart.RollingLineDataSet;
 
 public class MainActivity extends AppCompatActivity implements IMainView {
     private ActivityMainBinding binding;
@@ -39,18 +37,18 @@ public class MainActivity extends AppCompatActivity implements IMainView {
     private LineChart stepDetectionChart;
 
     // Orientation Chart
-    private LineDataSet[] orientationDataset;
+    private RollingLineDataSet[] orientationDataset;
     private LineData orientationData;
 
     // Step Detection Chart
-    private LineDataSet peaksDataset;
-    private LineDataSet thresholdDataset;
+    private RollingLineDataSet peaksDataset;
+    private RollingLineDataSet thresholdDataset;
     private LineData stepDetectionData;
 
     // Trajectory Chart
     private CombinedChart trajectoryChart;
     private CombinedData trajectoryData;
-    private ScatterDataSet stepsMarkerDataset;
+    private PointsScatterDataSet stepsMarkerDataset;
     private LineDataSet trajectoryPathDataset;
     // Chart Margin
     float maxCurrentX = 0f;
@@ -58,15 +56,17 @@ public class MainActivity extends AppCompatActivity implements IMainView {
     float maxCurrentY = 0f;
     float minCurrentY = 0f;
     float margin = 0.4f;
-
-    private static final int MAX_SAMPLES = 200; // Limit to 200 samples
-    private int sampleCount = 0;
+    // Every step position, drawn downsampled to the chart resolution
+    private final TrajectoryStore trajectory = new TrajectoryStore(0.05);
+    private static final int MAX_TRAJECTORY_POINTS = 1000;
+    private final float[] trajectoryX = new float[MAX_TRAJECTORY_POINTS];
+    private final float[] trajectoryY = new float[MAX_TRAJECTORY_POINTS];
+
+    private static final int MAX_SAMPLES = 3000; // Samples kept by the rolling charts, one minute
+    private static final int VISIBLE_SAMPLES = 200; // Samples shown at once
+    private int sampleCount = 0; // X of the next sample, never renumbered
     private boolean onRecord = true;
     private IMainPresenter mainPresenter;
-    private float currentX = 0f;  // Starting X position
-    private float currentY = 0f;  // Starting Y position
-    private float stepLength = 0.8f;  // Average step length in meters
-    private int lastStepCount = 0;    // To store the previous step count
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -76,23 +76,17 @@ public class MainActivity extends AppCompatActivity implements IMainView {
         // Presenter & Model Related
         mainPresenter = new MainPresenter(this);
         binding.btnRecord.setOnClickListener(this::OnRecord);
-        SensorManager sensorManager = (SensorManager) getSystemService(SENSOR_SERVICE);
-        Sensor accelerometerSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
-        Sensor gyroscopeSensor = sensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
-        Sensor magnetometerSensor = sensorManager.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD);
-
-        if (accelerometerSensor != null) {
-            sensorManager.registerListener(mainPresenter, accelerometerSensor, SensorManager.SENSOR_DELAY_GAME);
-        }
-        if (gyroscopeSensor != null) {
-            sensorManager.registerListener(mainPresenter, gyroscopeSensor, SensorManager.SENSOR_DELAY_GAME);
-        }
-        if (magnetometerSensor != null) {
-            sensorManager.registerListener(mainPresenter, magnetometerSensor, SensorManager.SENSOR_DELAY_GAME);
-        }
         // Chart related
         SetupCharts();
         ConfigureCharts();
+        // Sensors are processed on the presenter's own thread
+        mainPresenter.Start((SensorManager) getSystemService(SENSOR_SERVICE));
+    }
+
+    @Override
+    protected void onDestroy() {
+        mainPresenter.Stop();
+        super.onDestroy();
     }
 
     public void OnRecord(View view) {
@@ -115,10 +109,10 @@ public class MainActivity extends AppCompatActivity implements IMainView {
         // Orientation Chart
         orientationChart = binding.chartOrientation;
         orientationData = new LineData();
-        orientationDataset = new LineDataSet[]{
-                new LineDataSet(null, "Roll"),
-                new LineDataSet(null, "Pitch"),
-                new LineDataSet(null, "Yaw")
+        orientationDataset = new RollingLineDataSet[]{
+                new RollingLineDataSet(MAX_SAMPLES, "Roll"),
+                new RollingLineDataSet(MAX_SAMPLES, "Pitch"),
+                new RollingLineDataSet(MAX_SAMPLES, "Yaw")
         };
         for (int i = 0; i < orientationDataset.length; i++) {
             orientationDataset[i].setDrawCircles(false);
@@ -131,8 +125,8 @@ public class MainActivity extends AppCompatActivity implements IMainView {
 
         // Acceleration Chart
         stepDetectionChart = binding.chartPeak;
-        peaksDataset = new LineDataSet(null, "Acceleration");
-        thresholdDataset = new LineDataSet(null, "Threshold");
+        peaksDataset = new RollingLineDataSet(MAX_SAMPLES, "Acceleration");
+        thresholdDataset = new RollingLineDataSet(MAX_SAMPLES, "Threshold");
         peaksDataset.setDrawCircles(false);
         peaksDataset.setColor(ColorTemplate.COLORFUL_COLORS[0]);
         peaksDataset.setLineWidth(2f);
@@ -148,7 +142,7 @@ public class MainActivity extends AppCompatActivity implements IMainView {
 
         // Trajectory Chart
         trajectoryChart = binding.chartTrajectory;
-        stepsMarkerDataset = new ScatterDataSet(null, "Markers");
+        stepsMarkerDataset = new PointsScatterDataSet("Markers");
         stepsMarkerDataset.setScatterShape(ScatterChart.ScatterShape.CIRCLE);
         stepsMarkerDataset.setColor(Color.RED);
         stepsMarkerDataset.setScatterShapeSize(10f);
@@ -221,84 +215,58 @@ public class MainActivity extends AppCompatActivity implements IMainView {
         trajectoryChart.getDescription().setEnabled(false);
     }
 
-    public void AddEntriesChart(FMatrix3 orientation, double raw) {
-        // Update orientation Chart
-        for (int i = 0; i < orientationDataset.length; i++) {
-            orientationDataset[i].addEntry(new Entry(sampleCount, orientation.get(0, i)));
-            LimitDatasetSize(orientationDataset[i]);
+    public void AddEntriesChart(float[] roll, float[] pitch, float[] yaw, float[] acceleration, int count) {
+        // Add the whole batch, O(1) per sample: the oldest entries are reused
+        for (int n = 0; n < count; n++) {
+            orientationDataset[0].Append(sampleCount, roll[n]);
+            orientationDataset[1].Append(sampleCount, pitch[n]);
+            orientationDataset[2].Append(sampleCount, yaw[n]);
+            peaksDataset.Append(sampleCount, acceleration[n]);
+            thresholdDataset.Append(sampleCount, 0.4f);
+            sampleCount++;
         }
-        // Refresh chart
+        // Refresh orientation chart, the viewport follows the latest samples
         orientationData.notifyDataChanged();
         orientationChart.notifyDataSetChanged();
-        orientationChart.setVisibleXRangeMaximum(MAX_SAMPLES);
+        orientationChart.setVisibleXRangeMaximum(VISIBLE_SAMPLES);
         orientationChart.moveViewToX(sampleCount);
 
-        // Update Acceleration Chart
-        peaksDataset.addEntry(new Entry(sampleCount, (float) raw));
-        thresholdDataset.addEntry(new Entry(sampleCount, 0.4f));
-        LimitDatasetSize(peaksDataset);
-        LimitDatasetSize(thresholdDataset);
+        // Refresh acceleration chart
         stepDetectionData.notifyDataChanged();
         stepDetectionChart.notifyDataSetChanged();
-        stepDetectionChart.setVisibleXRangeMaximum(MAX_SAMPLES);
+        stepDetectionChart.setVisibleXRangeMaximum(VISIBLE_SAMPLES);
         stepDetectionChart.moveViewToX(sampleCount);
     }
 
-    private void LimitDatasetSize(LineDataSet dataset) {
-        if (dataset.getEntryCount() > MAX_SAMPLES) {
-            dataset.removeFirst();
-            for (Entry entry : dataset.getValues()) {
-                entry.setX(entry.getX() - 1);
-            }
-            sampleCount = MAX_SAMPLES;
-        }
-    }
-
 
-    public void UpdateTextUI(double acc, int steps, double heading, double position, double velocity) {
-        if (steps > lastStepCount) {
-            // Convert heading from degrees to radians
-            double headingRadians = Math.toRadians(heading);
-            // Calculate new position using the step length and heading
-            currentX += (float) (stepLength * Math.cos(headingRadians));
-            currentY += (float) (stepLength * Math.sin(headingRadians));
-            stepsMarkerDataset.addEntry(new Entry(currentX, currentY));
-            trajectoryPathDataset.addEntry(new Entry(currentX, currentY));
-
-            if (currentX > maxCurrentX) {
-                maxCurrentX = currentX;
-            }
-            if (currentY > maxCurrentY) {
-                maxCurrentY = currentY;
-            }
-            if (currentY < minCurrentY) {
-                minCurrentY = currentY;
-            }
-            if (currentX < minCurrentX) {
-                minCurrentX = currentX;
-            }
-
-            // Calculate margin for chart
-            float xmargin = (maxCurrentX - minCurrentX) * margin;
-            float ymargin = (maxCurrentY - minCurrentY) * margin;
-            // Sort entries based on X values
-            stepsMarkerDataset.getValues().sort(new EntryXComparator());
-            //Collections.sort(trajectoryPathDataset.getValues(), new EntryXComparator());
-
-            // Set the new axis limits with margin
-            XAxis xAxis = trajectoryChart.getXAxis();
-            xAxis.setAxisMinimum(minCurrentX - xmargin);
-            xAxis.setAxisMaximum(maxCurrentX + xmargin);
-            YAxis leftAxis = trajectoryChart.getAxisLeft();
-            leftAxis.setAxisMinimum(minCurrentY - ymargin);
-            leftAxis.setAxisMaximum(maxCurrentY + ymargin);
-
-            trajectoryData.notifyDataChanged();
-            trajectoryChart.notifyDataSetChanged();
-            trajectoryChart.invalidate();
+    // Positions come from the model's dead reckoning, only the chart is updated here
+    public void AddTrajectoryPoints(float[] x, float[] y, int count) {
+        for (int i = 0; i < count; i++) {
+            trajectory.Append(x[i], y[i]);
         }
-
-        // Update last step count
-        lastStepCount = steps;
+        maxCurrentX = Math.max(maxCurrentX, (float) trajectory.GetMaxX());
+        minCurrentX = Math.min(minCurrentX, (float) trajectory.GetMinX());
+        maxCurrentY = Math.max(maxCurrentY, (float) trajectory.GetMaxY());
+        minCurrentY = Math.min(minCurrentY, (float) trajectory.GetMinY());
+
+        // Calculate margin for chart
+        float xmargin = (maxCurrentX - minCurrentX) * margin;
+        float ymargin = (maxCurrentY - minCurrentY) * margin;
+        // Set the new axis limits with margin
+        XAxis xAxis = trajectoryChart.getXAxis();
+        xAxis.setAxisMinimum(minCurrentX - xmargin);
+        xAxis.setAxisMaximum(maxCurrentX + xmargin);
+        YAxis leftAxis = trajectoryChart.getAxisLeft();
+        leftAxis.setAxisMinimum(minCurrentY - ymargin);
+        leftAxis.setAxisMaximum(maxCurrentY + ymargin);
+
+        // Only the cells visible at the chart resolution are drawn, already sorted by X
+        int points = trajectory.Query(minCurrentX - xmargin, maxCurrentX + xmargin,
+                minCurrentY - ymargin, maxCurrentY + ymargin, MAX_TRAJECTORY_POINTS, trajectoryX, trajectoryY);
+        stepsMarkerDataset.SetPoints(trajectoryX, trajectoryY, points);
+
+        trajectoryData.notifyDataChanged();
+        trajectoryChart.notifyDataSetChanged();
+        trajectoryChart.invalidate();
     }
 }
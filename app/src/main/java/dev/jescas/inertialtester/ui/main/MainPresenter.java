@@ -2,119 +2,191 @@ package dev.jescas.inertialtester.ui.main;
 
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.Choreographer;
 
-import org.ejml.data.FMatrix3;
-import org.ejml.simple.SimpleMatrix;
-
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
-import dev.jescas.inertialtester.core.algorithms.StepDetection;
-import dev.jescas.inertialtester.core.math.Quaternion;
-import dev.jescas.inertialtester.core.persistance.WriteFileStream;
+import dev.jescas.inertialtester.core.persistance.SensorType;
+import dev.jescas.inertialtester.core.persistance.SessionFileWriter;
+import dev.jescas.inertialtester.core.pipeline.SensorIngest;
+import dev.jescas.inertialtester.core.trajectory.PedestrianDeadReckoning;
 
 
+/**
+ * Sensor events, fusion and recording run on a dedicated "SensorFusion"
+ * thread so chart redraws can never delay or drop samples. Results are
+ * collected in a {@link SampleBatch} and handed to the view once per
+ * display frame (Choreographer vsync), however many samples it holds, so
+ * the UI cost does not grow with the sensor rate. Dead reckoning runs in
+ * the model on the fusion thread too, the view only draws its positions.
+ */
 public class MainPresenter implements IMainPresenter{
+    private static final String TAG = "MainPresenter";
+    // Sampling period of SensorManager.SENSOR_DELAY_GAME
+    private static final int SAMPLING_PERIOD_US = 20000;
     private final IMainView view;
     private final MainModel model;
-    private boolean onRecording = false;
-    private WriteFileStream accFileStream, magFileStream, gyroFileStream;
+    // Copies event values into preallocated vectors, no allocation per event
+    private final SensorIngest ingest;
 
-    // Timestamps for synchronization
-    private long currTimestamp = 0;
-    private long prevTimestamp = 0;
+    private final HandlerThread fusionThread;
+    private final Handler fusionHandler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Choreographer choreographer;
+    private SensorManager sensorManager;
+    private boolean stopped = false; // Main thread only
+
+    // Fusion thread only
+    private boolean onRecording = false;
+    private SessionFileWriter sessionFile;
+    private int publishedSteps = 0;  // Dead reckoning steps already queued for the view
 
-    // Store the last measurements
-    private float[] lastAccValues = new float[3];
-    private float[] lastGyroValues = new float[3];
-    private float[] lastMagValues = new float[3];
+    // Double buffered results: filled on the fusion thread, drawn on the main thread
+    private final Object batchLock = new Object();
+    private SampleBatch pendingBatch = new SampleBatch();
+    private SampleBatch drawnBatch = new SampleBatch();
+    private boolean frameRequested = false;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> DrawBatch();
 
     public MainPresenter(IMainView view){
         this.view = view;
         this.model = new MainModel();
+        this.ingest = new SensorIngest(model);
+        // Created on the main thread, frame callbacks run there
+        this.choreographer = Choreographer.getInstance();
+        fusionThread = new HandlerThread("SensorFusion", Process.THREAD_PRIORITY_DISPLAY);
+        fusionThread.start();
+        fusionHandler = new Handler(fusionThread.getLooper());
+    }
+
+    @Override
+    public void Start(SensorManager sensorManager) {
+        this.sensorManager = sensorManager;
+        int[] types = {Sensor.TYPE_ACCELEROMETER, Sensor.TYPE_GYROSCOPE, Sensor.TYPE_MAGNETIC_FIELD};
+        for (int type : types) {
+            Sensor sensor = sensorManager.getDefaultSensor(type);
+            if (sensor != null) {
+                // Events are delivered on the fusion thread
+                sensorManager.registerListener(this, sensor, SensorManager.SENSOR_DELAY_GAME, fusionHandler);
+            }
+        }
+    }
+
+    @Override
+    public void Stop() {
+        stopped = true;
+        if (sensorManager != null) {
+            sensorManager.unregisterListener(this);
+        }
+        // Finish the recording, if any, before the thread quits
+        fusionHandler.post(() -> SetRecording(false, null));
+        fusionThread.quitSafely();
+        choreographer.removeFrameCallback(frameCallback);
     }
 
     public void EnableRecord(boolean enable){
+        File directory = enable ? view.getBaseContext().getExternalFilesDir(null) : null;
+        fusionHandler.post(() -> SetRecording(enable, directory));
+    }
+
+    // Runs on the fusion thread, so the writer is never used concurrently
+    private void SetRecording(boolean enable, File directory){
         if(enable) {
-            accFileStream =  new WriteFileStream(view.getBaseContext().getExternalFilesDir(null), "accel_data");
-            magFileStream =  new WriteFileStream(view.getBaseContext().getExternalFilesDir(null), "mag_data");
-            gyroFileStream =  new WriteFileStream(view.getBaseContext().getExternalFilesDir(null), "gyro_data");
-        }else{
-            view.OnRecordFinished(accFileStream.GetFilePath());
-            view.OnRecordFinished(gyroFileStream.GetFilePath());
-            view.OnRecordFinished(magFileStream.GetFilePath());
-            accFileStream.CloseStream();
-            gyroFileStream.CloseStream();
-            magFileStream.CloseStream();
+            try {
+                sessionFile = new SessionFileWriter(directory,
+                        new int[]{SensorType.ACCELEROMETER, SensorType.GYROSCOPE, SensorType.MAGNETIC_FIELD},
+                        new int[]{SAMPLING_PERIOD_US, SAMPLING_PERIOD_US, SAMPLING_PERIOD_US},
+                        Build.MANUFACTURER + " " + Build.MODEL + " (API " + Build.VERSION.SDK_INT + ")");
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot start recording", e);
+                return;
+            }
+        }else if (sessionFile != null) {
+            String path = sessionFile.GetFilePath();
+            mainHandler.post(() -> {
+                if (!stopped) {
+                    view.OnRecordFinished(path);
+                }
+            });
+            try {
+                sessionFile.CloseStream();
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot finish recording", e);
+            }
+            if (sessionFile.GetDroppedCount() > 0) {
+                Log.w(TAG, "Recording dropped " + sessionFile.GetDroppedCount() + " samples, writer could not keep up");
+            }
+            sessionFile = null;
         }
         onRecording = enable;
     }
 
+    // Fusion thread
     @Override
     public void onSensorChanged(SensorEvent sensorEvent) {
-        currTimestamp = sensorEvent.timestamp;
-
-        switch (sensorEvent.sensor.getType()) {
-            case Sensor.TYPE_ACCELEROMETER:
-                // Update last values and timestamp
-                lastAccValues = sensorEvent.values.clone();
-                break;
-
-            case Sensor.TYPE_GYROSCOPE:
-                // Update last values and timestamp
-                lastGyroValues = sensorEvent.values.clone();
-                break;
-
-            case Sensor.TYPE_MAGNETIC_FIELD:
-                // Update last values and timestamp
-                lastMagValues = sensorEvent.values.clone();
-                Process();
-                prevTimestamp = currTimestamp;
-                break;
+        int type = sensorEvent.sensor.getType();
 
+        // Save on record only, every event with its own timestamp
+        if (onRecording) {
+            sessionFile.AppendData(type, sensorEvent.timestamp, sensorEvent.values);
         }
-    }
 
-    private void Process(){
-        // Calculate delta time in seconds
-        double deltaTime = (currTimestamp - prevTimestamp) * 1e-9; // Convert nanoseconds to seconds
-        if(deltaTime > 1.0){
-            return;
+        // Every magnetometer event runs the model
+        if (ingest.OnSample(type, sensorEvent.timestamp, sensorEvent.values)) {
+            Publish();
         }
-        // Create FMatrix3 objects for processing
-        FMatrix3 accVector = new FMatrix3(lastAccValues[0],lastAccValues[1],lastAccValues[2]);
-        FMatrix3 magVector = new FMatrix3(lastMagValues[0],lastMagValues[1],lastMagValues[2]);
-        FMatrix3 gyroVector = new FMatrix3(lastGyroValues[0],lastGyroValues[1],lastGyroValues[2]);
-
-        // Process Data & Show in UI
-        Quaternion orientation = model.ProcessQuaternion(accVector, magVector, gyroVector, deltaTime);
-        FMatrix3 angles = orientation.getEulerAngles();
-        FMatrix3 accRot = orientation.rotateVector(accVector);
-        double acc_ft = model.ProcessRawAcceleration(accRot);
-        int steps = model.CountStepsAcceleration(acc_ft, currTimestamp);
-        double heading = angles.a3;
-
-        Double[] integral = model.IntegrateAcceleration(acc_ft, deltaTime);
-
-        view.AddEntriesChart(angles, acc_ft);
-        view.UpdateTextUI(acc_ft, steps, heading, integral[0], integral[1]);
+    }
 
-        // Save on record only
-        if (onRecording) {
-            accFileStream.AppendData(lastAccValues);
-            gyroFileStream.AppendData(lastGyroValues);
-            magFileStream.AppendData(lastMagValues);
+    // Fusion thread: queue the outputs, request the next frame if none is pending
+    private void Publish(){
+        synchronized (batchLock) {
+            pendingBatch.Add(model.GetEulerAngles(), model.GetAcceleration());
+            PedestrianDeadReckoning pdr = model.GetPdr();
+            for (; pdr != null && publishedSteps < pdr.Size(); publishedSteps++) {
+                pendingBatch.AddStep(pdr.GetX(publishedSteps), pdr.GetY(publishedSteps));
+            }
+            if (frameRequested) {
+                return;
+            }
+            frameRequested = true;
         }
+        // Thread safe, the callback runs on the main thread at the next vsync
+        choreographer.postFrameCallback(frameCallback);
     }
 
-
+    // Main thread, once per frame: draw every sample queued since the last frame
+    private void DrawBatch(){
+        SampleBatch batch;
+        synchronized (batchLock) {
+            batch = pendingBatch;
+            pendingBatch = drawnBatch;
+            drawnBatch = batch;
+            frameRequested = false;
+        }
+        if (!stopped) {
+            if (batch.dropped > 0) {
+                Log.w(TAG, "UI skipped " + batch.dropped + " chart samples");
+            }
+            if (batch.count > 0) {
+                view.AddEntriesChart(batch.roll, batch.pitch, batch.yaw, batch.acceleration, batch.count);
+            }
+            if (batch.droppedSteps > 0) {
+                Log.w(TAG, "UI skipped " + batch.droppedSteps + " trajectory points");
+            }
+            if (batch.stepCount > 0) {
+                view.AddTrajectoryPoints(batch.stepX, batch.stepY, batch.stepCount);
+            }
+        }
+        batch.Clear();
+    }
 
     @Override
     public void onAccuracyChanged(Sensor sensor, int i) {
@@ -0,0 +1,58 @@
+package dev.jescas.inertialtester.ui.main;
+
+import org.ejml.data.FMatrix3;
+
+/**
+ * Fusion outputs produced on the processing thread since the UI last drew
+ * them. Chart samples and dead reckoning step positions are kept in order
+ * (up to CAPACITY and STEP_CAPACITY, later ones are dropped while the UI
+ * is stalled).
+ */
+class SampleBatch {
+    // Five seconds of magnetometer ticks at SENSOR_DELAY_GAME
+    static final int CAPACITY = 256;
+    // Half a minute of walking
+    static final int STEP_CAPACITY = 64;
+
+    final float[] roll = new float[CAPACITY];
+    final float[] pitch = new float[CAPACITY];
+    final float[] yaw = new float[CAPACITY];
+    final float[] acceleration = new float[CAPACITY];
+    int count;
+    int dropped;
+
+    // Positions after every new step (m)
+    final float[] stepX = new float[STEP_CAPACITY];
+    final float[] stepY = new float[STEP_CAPACITY];
+    int stepCount;
+    int droppedSteps;
+
+    void Add(FMatrix3 angles, double acc) {
+        if (count < CAPACITY) {
+            roll[count] = angles.a1;
+            pitch[count] = angles.a2;
+            yaw[count] = angles.a3;
+            acceleration[count] = (float) acc;
+            count++;
+        } else {
+            dropped++;
+        }
+    }
+
+    void AddStep(double x, double y) {
+        if (stepCount < STEP_CAPACITY) {
+            stepX[stepCount] = (float) x;
+            stepY[stepCount] = (float) y;
+            stepCount++;
+        } else {
+            droppedSteps++;
+        }
+    }
+
+    void Clear() {
+        count = 0;
+        dropped = 0;
+        stepCount = 0;
+        droppedSteps = 0;
+    }
+}
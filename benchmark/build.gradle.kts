@@ -0,0 +1,32 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    implementation(project(":core"))
+    jmh(libs.jmh.core)
+    jmh(libs.jmh.generator)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    profilers = listOf("gc")
+    // ./gradlew :benchmark:jmh -Pjmh.includes=Madgwick
+    if (project.hasProperty("jmh.includes")) {
+        includes = listOf(project.property("jmh.includes") as String)
+    }
+    // ./gradlew :benchmark:jmh -Pjmh.recording=/path/to/session
+    if (project.hasProperty("jmh.recording")) {
+        benchmarkParameters.put("source", project.objects.listProperty(String::class.java)
+            .value(listOf(project.property("jmh.recording") as String)))
+    }
+}
@@ -0,0 +1,175 @@
+package dev.jescas.inertialtester.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import dev.jescas.inertialtester.core.algorithms.AccelerationIntegrator;
+import dev.jescas.inertialtester.core.algorithms.AdaptiveStepDetector;
+import dev.jescas.inertialtester.core.algorithms.StepDetection;
+import dev.jescas.inertialtester.core.filters.ButterWorthFilter;
+import dev.jescas.inertialtester.core.filters.FixedKalmanFilter;
+import dev.jescas.inertialtester.core.filters.KalmantFilter;
+import dev.jescas.inertialtester.core.filters.ZeroPhaseFilter;
+import dev.jescas.inertialtester.core.pipeline.PipelineConfig;
+
+/**
+ * Cost per sample of the scalar acceleration chain used by FusionPipeline:
+ * Kalman gravity removal, Butterworth low pass, peak based and adaptive
+ * step detection and the stop detecting integrator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FilterBenchmark {
+    static final int SAMPLES = 10_000;
+
+    // Same coefficients as the app chain
+    static final double[] LOW_PASS_A = PipelineConfig.LOW_PASS_A;
+    static final double[] LOW_PASS_B = PipelineConfig.LOW_PASS_B;
+
+    @Param({"synthetic"})
+    public String source;
+
+    private long[] timestamps;
+    private double[] accelerationNorm;
+    private double[] dynamicAcceleration;
+    private KalmantFilter kalmantFilter;
+    private FixedKalmanFilter fixedKalmanFilter;
+    private ButterWorthFilter lowPassFilter;
+    private double[] filtered;
+    private ZeroPhaseFilter zeroPhaseFilter;
+    private StepDetection stepDetection;
+    private AdaptiveStepDetector adaptiveStepDetector;
+
+    @Setup(Level.Trial)
+    public void LoadStream() throws IOException {
+        ImuStream stream = ImuStream.Open(source, SAMPLES);
+        timestamps = stream.timestamps;
+        accelerationNorm = stream.AccelerationNorm();
+
+        // Step detection runs on the filtered dynamic acceleration
+        KalmantFilter kalman = new KalmantFilter();
+        ButterWorthFilter filter = new ButterWorthFilter(LOW_PASS_A, LOW_PASS_B);
+        dynamicAcceleration = new double[accelerationNorm.length];
+        filtered = new double[accelerationNorm.length];
+        for (int i = 0; i < accelerationNorm.length; i++) {
+            kalman.Predict();
+            kalman.Update(accelerationNorm[i]);
+            filter.Update(kalman.GetDynamicAcceleration());
+            dynamicAcceleration[i] = filter.GetOutput();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void ResetFilters() {
+        kalmantFilter = new KalmantFilter();
+        fixedKalmanFilter = new FixedKalmanFilter();
+        lowPassFilter = new ButterWorthFilter(LOW_PASS_A, LOW_PASS_B);
+        zeroPhaseFilter = new ZeroPhaseFilter(LOW_PASS_A, LOW_PASS_B);
+        stepDetection = new StepDetection(0.5);
+        adaptiveStepDetector = new AdaptiveStepDetector(100);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double KalmanPredictUpdate() {
+        int n = Math.min(SAMPLES, accelerationNorm.length);
+        for (int i = 0; i < n; i++) {
+            kalmantFilter.Predict();
+            kalmantFilter.Update(accelerationNorm[i]);
+        }
+        return kalmantFilter.GetDynamicAcceleration();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double FixedKalmanPredictUpdate() {
+        int n = Math.min(SAMPLES, accelerationNorm.length);
+        for (int i = 0; i < n; i++) {
+            fixedKalmanFilter.Predict();
+            fixedKalmanFilter.Update(accelerationNorm[i]);
+        }
+        return fixedKalmanFilter.GetDynamicAcceleration();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double ButterWorthUpdate() {
+        int n = Math.min(SAMPLES, accelerationNorm.length);
+        for (int i = 0; i < n; i++) {
+            lowPassFilter.Update(accelerationNorm[i]);
+        }
+        return lowPassFilter.GetOutput();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double ButterWorthProcessBlock() {
+        lowPassFilter.Process(accelerationNorm, filtered, 0, Math.min(SAMPLES, accelerationNorm.length));
+        return lowPassFilter.GetOutput();
+    }
+
+    // Forward-backward over the whole stream, per input sample
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double ZeroPhaseFilter() {
+        int n = Math.min(SAMPLES, accelerationNorm.length);
+        zeroPhaseFilter.Filter(accelerationNorm, filtered, 0, n);
+        return filtered[n - 1];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void StepDetectionDetectPeak(Blackhole bh) {
+        int n = Math.min(SAMPLES, dynamicAcceleration.length);
+        for (int i = 0; i < n; i++) {
+            bh.consume(stepDetection.DetectPeak(dynamicAcceleration[i], timestamps[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int AdaptiveStepDetectorFeed() {
+        int n = Math.min(SAMPLES, dynamicAcceleration.length);
+        for (int i = 0; i < n; i++) {
+            adaptiveStepDetector.Feed(dynamicAcceleration[i], timestamps[i]);
+        }
+        return adaptiveStepDetector.GetStepCount();
+    }
+
+    // The integrator window is a parameter of its own so the other benchmarks run once
+    @State(Scope.Thread)
+    public static class IntegratorState {
+        @Param({"10", "400"})
+        public int windowSize;
+
+        AccelerationIntegrator integrator;
+
+        @Setup(Level.Iteration)
+        public void ResetIntegrator() {
+            integrator = new AccelerationIntegrator(windowSize, 0.1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double AccelerationIntegratorFeed(IntegratorState state) {
+        int n = Math.min(SAMPLES, dynamicAcceleration.length);
+        for (int i = 0; i < n; i++) {
+            state.integrator.Feed(dynamicAcceleration[i], 0.01);
+        }
+        return state.integrator.GetPosition();
+    }
+}
@@ -0,0 +1,131 @@
+package dev.jescas.inertialtester.benchmark;
+
+import org.ejml.data.FMatrix3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import dev.jescas.inertialtester.core.algorithms.ErrorStateKalmanFilter;
+import dev.jescas.inertialtester.core.algorithms.FactoredQuaternionAlgorithm;
+import dev.jescas.inertialtester.core.algorithms.MadgwickFilter;
+import dev.jescas.inertialtester.core.algorithms.StrapdownNavigator;
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+/**
+ * Cost per sample of the orientation estimators and of the strapdown
+ * navigation that consumes their output. Every invocation replays
+ * {@link #SAMPLES} samples, so the reported time and gc.alloc.rate.norm
+ * are per sample.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FusionBenchmark {
+    static final int SAMPLES = 10_000;
+
+    @Param({"synthetic"})
+    public String source;
+
+    private ImuStream stream;
+    private final FMatrix3 acc = new FMatrix3();
+    private final FMatrix3 gyro = new FMatrix3();
+    private final FMatrix3 mag = new FMatrix3();
+    private MadgwickFilter madgwickFilter;
+    private FactoredQuaternionAlgorithm factoredQuaternion;
+    private ErrorStateKalmanFilter errorStateFilter;
+    private StrapdownNavigator navigator;
+    private Quaternion[] orientations;
+
+    @Setup(Level.Trial)
+    public void LoadStream() throws IOException {
+        stream = ImuStream.Open(source, SAMPLES);
+        // Orientation per sample so the navigator is measured alone
+        MadgwickFilter filter = new MadgwickFilter();
+        orientations = new Quaternion[stream.size];
+        for (int i = 0; i < stream.size; i++) {
+            Load(i);
+            double dt = i > 0 ? (stream.timestamps[i] - stream.timestamps[i - 1]) * 1e-9 : 0.01;
+            filter.Feed(acc, mag, gyro, dt);
+            orientations[i] = filter.GetQuaternion(Quaternion.identity());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void ResetFilters() {
+        madgwickFilter = new MadgwickFilter();
+        factoredQuaternion = new FactoredQuaternionAlgorithm();
+        errorStateFilter = new ErrorStateKalmanFilter();
+        navigator = new StrapdownNavigator();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void MadgwickFeed(Blackhole bh) {
+        int n = Math.min(SAMPLES, stream.size);
+        for (int i = 1; i < n; i++) {
+            Load(i);
+            double dt = (stream.timestamps[i] - stream.timestamps[i - 1]) * 1e-9;
+            madgwickFilter.Feed(acc, mag, gyro, dt);
+        }
+        bh.consume(madgwickFilter);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void FactoredQuaternionFeed(Blackhole bh) {
+        int n = Math.min(SAMPLES, stream.size);
+        for (int i = 0; i < n; i++) {
+            Load(i);
+            factoredQuaternion.Feed(acc, mag);
+        }
+        bh.consume(factoredQuaternion);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void ErrorStateKalmanFeed(Blackhole bh) {
+        int n = Math.min(SAMPLES, stream.size);
+        for (int i = 1; i < n; i++) {
+            Load(i);
+            double dt = (stream.timestamps[i] - stream.timestamps[i - 1]) * 1e-9;
+            errorStateFilter.Feed(acc, mag, gyro, dt);
+        }
+        bh.consume(errorStateFilter);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void StrapdownFeed(Blackhole bh) {
+        int n = Math.min(SAMPLES, stream.size);
+        for (int i = 1; i < n; i++) {
+            Load(i);
+            double dt = (stream.timestamps[i] - stream.timestamps[i - 1]) * 1e-9;
+            navigator.Feed(orientations[i], acc, gyro, dt);
+        }
+        bh.consume(navigator);
+    }
+
+    private void Load(int i) {
+        int k = 3 * i;
+        acc.a1 = stream.acc[k];
+        acc.a2 = stream.acc[k + 1];
+        acc.a3 = stream.acc[k + 2];
+        gyro.a1 = stream.gyro[k];
+        gyro.a2 = stream.gyro[k + 1];
+        gyro.a3 = stream.gyro[k + 2];
+        mag.a1 = stream.mag[k];
+        mag.a2 = stream.mag[k + 1];
+        mag.a3 = stream.mag[k + 2];
+    }
+}
@@ -0,0 +1,152 @@
+package dev.jescas.inertialtester.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * IMU samples held in flat primitive arrays so the benchmark loops only pay
+ * for the algorithm under test. Every sample i has acc/gyro/mag values at
+ * [3*i, 3*i+3) and a timestamp in nanoseconds.
+ */
+public final class ImuStream {
+    public final int size;
+    public final float[] acc;
+    public final float[] gyro;
+    public final float[] mag;
+    public final long[] timestamps;
+
+    private ImuStream(int size) {
+        this.size = size;
+        this.acc = new float[3 * size];
+        this.gyro = new float[3 * size];
+        this.mag = new float[3 * size];
+        this.timestamps = new long[size];
+    }
+
+    /**
+     * Resolve a benchmark "source" parameter: "synthetic" or a directory that
+     * holds one accel_data/gyro_data/mag_data recording.
+     */
+    public static ImuStream Open(String source, int samples) throws IOException {
+        if ("synthetic".equals(source)) {
+            return Synthetic(samples, 100.0, 42L);
+        }
+        return Load(new File(source)).Resize(samples);
+    }
+
+    /**
+     * Phone held flat while walking: gravity plus a 2 Hz vertical bounce,
+     * a slow heading change, gaussian sensor noise and up to 100 us of
+     * timestamp jitter like SensorEvent timestamps.
+     */
+    public static ImuStream Synthetic(int samples, double rateHz, long seed) {
+        ImuStream stream = new ImuStream(samples);
+        Random random = new Random(seed);
+        Random jitter = new Random(seed + 1);
+        double dt = 1.0 / rateHz;
+        for (int i = 0; i < samples; i++) {
+            double t = i * dt;
+            double heading = 0.1 * t;
+            double bounce = 1.5 * Math.sin(2.0 * Math.PI * 2.0 * t);
+            stream.acc[3 * i] = (float) (0.3 * Math.sin(2.0 * Math.PI * t) + 0.05 * random.nextGaussian());
+            stream.acc[3 * i + 1] = (float) (0.3 * Math.cos(2.0 * Math.PI * t) + 0.05 * random.nextGaussian());
+            stream.acc[3 * i + 2] = (float) (9.81 + bounce + 0.05 * random.nextGaussian());
+            stream.gyro[3 * i] = (float) (0.01 * random.nextGaussian());
+            stream.gyro[3 * i + 1] = (float) (0.01 * random.nextGaussian());
+            stream.gyro[3 * i + 2] = (float) (0.1 + 0.01 * random.nextGaussian());
+            stream.mag[3 * i] = (float) (20.0 * Math.cos(heading) + 0.5 * random.nextGaussian());
+            stream.mag[3 * i + 1] = (float) (-20.0 * Math.sin(heading) + 0.5 * random.nextGaussian());
+            stream.mag[3 * i + 2] = (float) (-40.0 + 0.5 * random.nextGaussian());
+            stream.timestamps[i] = (long) (t * 1e9) + jitter.nextInt(100_000);
+        }
+        return stream;
+    }
+
+    /**
+     * Load a recording made by WriteFileStream. The three files are written
+     * together on every magnetometer tick so records line up by index.
+     */
+    public static ImuStream Load(File directory) throws IOException {
+        float[][] acc = new float[1][];
+        float[][] gyro = new float[1][];
+        float[][] mag = new float[1][];
+        long[] timestamps = ReadRecords(FindRecording(directory, "accel_data"), acc);
+        ReadRecords(FindRecording(directory, "gyro_data"), gyro);
+        ReadRecords(FindRecording(directory, "mag_data"), mag);
+
+        int samples = Math.min(timestamps.length, Math.min(gyro[0].length, mag[0].length) / 3);
+        ImuStream stream = new ImuStream(samples);
+        System.arraycopy(acc[0], 0, stream.acc, 0, 3 * samples);
+        System.arraycopy(gyro[0], 0, stream.gyro, 0, 3 * samples);
+        System.arraycopy(mag[0], 0, stream.mag, 0, 3 * samples);
+        for (int i = 0; i < samples; i++) {
+            stream.timestamps[i] = timestamps[i] * 1_000_000L; // Recorded in milliseconds
+        }
+        return stream;
+    }
+
+    private static File FindRecording(File directory, String prefix) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(".bin"));
+        if (files == null || files.length == 0) {
+            throw new IOException("No " + prefix + "*.bin recording in " + directory);
+        }
+        Arrays.sort(files);
+        return files[0];
+    }
+
+    private static long[] ReadRecords(File file, float[][] values) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.nativeOrder());
+            int records = (int) (channel.size() / 20);
+            long[] timestamps = new long[records];
+            values[0] = new float[3 * records];
+            for (int i = 0; i < records; i++) {
+                timestamps[i] = buffer.getLong();
+                values[0][3 * i] = buffer.getFloat();
+                values[0][3 * i + 1] = buffer.getFloat();
+                values[0][3 * i + 2] = buffer.getFloat();
+            }
+            return timestamps;
+        }
+    }
+
+    /**
+     * Exactly samples long: truncated, or cycled with continuous timestamps
+     * so per-sample normalisation of the benchmarks stays correct.
+     */
+    public ImuStream Resize(int samples) {
+        if (size == 0) {
+            throw new IllegalStateException("Empty recording");
+        }
+        ImuStream resized = new ImuStream(samples);
+        long period = size > 1 ? timestamps[size - 1] - timestamps[0] + (timestamps[1] - timestamps[0]) : 0;
+        for (int i = 0; i < samples; i++) {
+            int src = i % size;
+            System.arraycopy(acc, 3 * src, resized.acc, 3 * i, 3);
+            System.arraycopy(gyro, 3 * src, resized.gyro, 3 * i, 3);
+            System.arraycopy(mag, 3 * src, resized.mag, 3 * i, 3);
+            resized.timestamps[i] = timestamps[src] + (i / size) * period;
+        }
+        return resized;
+    }
+
+    /**
+     * Norm of every accelerometer sample, the input of the scalar filters.
+     */
+    public double[] AccelerationNorm() {
+        double[] norm = new double[size];
+        for (int i = 0; i < size; i++) {
+            float x = acc[3 * i], y = acc[3 * i + 1], z = acc[3 * i + 2];
+            norm[i] = Math.sqrt(x * x + y * y + z * z);
+        }
+        return norm;
+    }
+}
@@ -0,0 +1,134 @@
+package dev.jescas.inertialtester.benchmark;
+
+import org.ejml.data.FMatrix3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import dev.jescas.inertialtester.core.algorithms.MadgwickFilter;
+import dev.jescas.inertialtester.core.algorithms.MadgwickFilterBank;
+
+/**
+ * Many Madgwick filters at once, e.g. one per replayed session: N scalar
+ * filters fed one after the other against one {@link MadgwickFilterBank}
+ * of N lanes. Every invocation runs {@link #SAMPLES} lane samples whatever
+ * the number of lanes, so the reported time is per sample per filter.
+ * Lane l reads the stream from its own offset so lanes differ; both
+ * variants pay the same copy of the inputs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MadgwickBankBenchmark {
+    static final int SAMPLES = 1 << 14;
+
+    @Param({"synthetic"})
+    public String source;
+
+    @Param({"1", "8", "64", "1024"})
+    public int lanes;
+
+    private ImuStream stream;
+    private int[] offsets;
+    private final FMatrix3 acc = new FMatrix3();
+    private final FMatrix3 gyro = new FMatrix3();
+    private final FMatrix3 mag = new FMatrix3();
+    private MadgwickFilter[] filters;
+    private MadgwickFilterBank bank;
+
+    @Setup(Level.Trial)
+    public void LoadStream() throws IOException {
+        // Room for SAMPLES steps after any offset, no wrap in the loops
+        stream = ImuStream.Open(source, 2 * SAMPLES);
+        offsets = new int[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            offsets[lane] = (lane * 997) % SAMPLES;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void ResetFilters() {
+        filters = new MadgwickFilter[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            filters[lane] = new MadgwickFilter();
+        }
+        bank = new MadgwickFilterBank(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            int k = 3 * offsets[lane];
+            bank.accX[lane] = stream.acc[k];
+            bank.accY[lane] = stream.acc[k + 1];
+            bank.accZ[lane] = stream.acc[k + 2];
+            bank.gyroX[lane] = stream.gyro[k];
+            bank.gyroY[lane] = stream.gyro[k + 1];
+            bank.gyroZ[lane] = stream.gyro[k + 2];
+            bank.magX[lane] = stream.mag[k];
+            bank.magY[lane] = stream.mag[k + 1];
+            bank.magZ[lane] = stream.mag[k + 2];
+            bank.dt[lane] = 0.01f;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void ScalarFilters(Blackhole bh) {
+        for (int step = 0, steps = SAMPLES / lanes; step < steps; step++) {
+            for (int lane = 0; lane < lanes; lane++) {
+                int k = 3 * (offsets[lane] + step);
+                acc.a1 = stream.acc[k];
+                acc.a2 = stream.acc[k + 1];
+                acc.a3 = stream.acc[k + 2];
+                gyro.a1 = stream.gyro[k];
+                gyro.a2 = stream.gyro[k + 1];
+                gyro.a3 = stream.gyro[k + 2];
+                mag.a1 = stream.mag[k];
+                mag.a2 = stream.mag[k + 1];
+                mag.a3 = stream.mag[k + 2];
+                filters[lane].Feed(acc, mag, gyro, 0.01);
+            }
+        }
+        bh.consume(filters);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void FilterBank(Blackhole bh) {
+        for (int step = 0, steps = SAMPLES / lanes; step < steps; step++) {
+            for (int lane = 0; lane < lanes; lane++) {
+                int k = 3 * (offsets[lane] + step);
+                bank.accX[lane] = stream.acc[k];
+                bank.accY[lane] = stream.acc[k + 1];
+                bank.accZ[lane] = stream.acc[k + 2];
+                bank.gyroX[lane] = stream.gyro[k];
+                bank.gyroY[lane] = stream.gyro[k + 1];
+                bank.gyroZ[lane] = stream.gyro[k + 2];
+                bank.magX[lane] = stream.mag[k];
+                bank.magY[lane] = stream.mag[k + 1];
+                bank.magZ[lane] = stream.mag[k + 2];
+                bank.dt[lane] = 0.01f;
+            }
+            bank.Update();
+        }
+        bh.consume(bank);
+    }
+
+    // The filter step alone, inputs already in the lanes
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void FilterBankUpdate(Blackhole bh) {
+        for (int step = 0, steps = SAMPLES / lanes; step < steps; step++) {
+            bank.Update();
+        }
+        bh.consume(bank);
+    }
+}
@@ -0,0 +1,96 @@
+package dev.jescas.inertialtester.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import dev.jescas.inertialtester.core.pipeline.Channel;
+import dev.jescas.inertialtester.core.pipeline.FrameBlock;
+import dev.jescas.inertialtester.core.pipeline.PipelineConfig;
+import dev.jescas.inertialtester.core.pipeline.SampleFrame;
+import dev.jescas.inertialtester.core.pipeline.StagePipeline;
+
+/**
+ * Cost per sample of a whole configured stage chain in streaming mode
+ * (one frame through every stage) and in block mode (every stage over
+ * the whole block in turn).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PipelineBenchmark {
+    static final int SAMPLES = 10_000;
+
+    @Param({"synthetic"})
+    public String source;
+
+    @Param({PipelineConfig.MADGWICK, PipelineConfig.EKF})
+    public String estimator;
+
+    private FrameBlock input;
+    private FrameBlock block;
+    private final SampleFrame frame = new SampleFrame();
+    private StagePipeline streaming;
+    private StagePipeline blocked;
+
+    @Setup(Level.Trial)
+    public void LoadStream() throws IOException {
+        ImuStream stream = ImuStream.Open(source, SAMPLES);
+        input = new FrameBlock(stream.size);
+        block = new FrameBlock(stream.size);
+        for (int i = 0; i < stream.size; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                input.Get(Channel.ACC_X + axis)[i] = stream.acc[3 * i + axis];
+                input.Get(Channel.GYRO_X + axis)[i] = stream.gyro[3 * i + axis];
+                input.Get(Channel.MAG_X + axis)[i] = stream.mag[3 * i + axis];
+            }
+            input.Get(Channel.DT)[i] = i > 0 ? (stream.timestamps[i] - stream.timestamps[i - 1]) * 1e-9 : 0.01;
+            input.GetTimestamps()[i] = stream.timestamps[i];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void ResetPipelines() {
+        String config = PipelineConfig.Default(estimator);
+        streaming = PipelineConfig.Parse(config);
+        blocked = PipelineConfig.Parse(config);
+        for (int c = 0; c < Channel.COUNT; c++) {
+            System.arraycopy(input.Get(c), 0, block.Get(c), 0, input.GetCapacity());
+        }
+        System.arraycopy(input.GetTimestamps(), 0, block.GetTimestamps(), 0, input.GetCapacity());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void Streaming(Blackhole bh) {
+        double[] v = frame.values;
+        int n = Math.min(SAMPLES, input.GetCapacity());
+        for (int i = 0; i < n; i++) {
+            // Sensor inputs only, like SensorIngest
+            for (int c = Channel.ACC_X; c <= Channel.DT; c++) {
+                v[c] = input.Get(c)[i];
+            }
+            frame.timestamp = input.GetTimestamps()[i];
+            streaming.Process(frame);
+        }
+        bh.consume(v[Channel.STEPS]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void Block(Blackhole bh) {
+        blocked.ProcessBlock(block, 0, Math.min(SAMPLES, block.GetCapacity()));
+        bh.consume(block.Get(Channel.STEPS)[SAMPLES - 1]);
+    }
+}
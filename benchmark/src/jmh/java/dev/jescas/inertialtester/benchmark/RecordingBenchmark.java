@@ -0,0 +1,101 @@
+package dev.jescas.inertialtester.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+import dev.jescas.inertialtester.core.persistance.SensorType;
+import dev.jescas.inertialtester.core.persistance.SessionBlockFormat;
+import dev.jescas.inertialtester.core.persistance.SessionHeader;
+
+/**
+ * Cost of the session file formats on the writer thread: encode time and
+ * file bytes per record (acc, gyro and mag records interleaved as the app
+ * records them). Blocks are written to /dev/null so only the encoding is
+ * measured. The bytes and records secondary results are totals per
+ * iteration, their ratio is the file size per record (raw is 24).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecordingBenchmark {
+    static final int SAMPLES = 10_000;
+    static final int RECORDS = 3 * SAMPLES;
+    private static final int[] SENSORS = {SensorType.ACCELEROMETER, SensorType.GYROSCOPE, SensorType.MAGNETIC_FIELD};
+
+    @Param({"synthetic"})
+    public String source;
+
+    @Param({"raw", "compressed"})
+    public String format;
+
+    private ImuStream stream;
+    private FileOutputStream sink;
+    private FileChannel channel;
+    private SessionBlockFormat blockFormat;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytes;
+        public long records;
+    }
+
+    @Setup(Level.Trial)
+    public void LoadStream() throws IOException {
+        stream = ImuStream.Open(source, SAMPLES);
+        sink = new FileOutputStream("/dev/null");
+        channel = sink.getChannel();
+    }
+
+    @Setup(Level.Iteration)
+    public void ResetFormat() throws IOException {
+        SessionHeader header = new SessionHeader(0, 64 * 1024, SENSORS, new int[]{20000, 20000, 20000}, "benchmark",
+                "compressed".equals(format) ? SessionHeader.FLAG_COMPRESSED : 0);
+        blockFormat = new SessionBlockFormat(header);
+        blockFormat.WriteHeader(channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void Close() throws IOException {
+        sink.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void Encode(Size size) throws IOException {
+        long start = blockFormat.GetPosition();
+        int n = Math.min(SAMPLES, stream.size);
+        for (int i = 0; i < n; i++) {
+            int k = 3 * i;
+            long timestamp = stream.timestamps[i];
+            Append(SensorType.ACCELEROMETER, timestamp, stream.acc, k);
+            Append(SensorType.GYROSCOPE, timestamp + 1_000_000L, stream.gyro, k);
+            Append(SensorType.MAGNETIC_FIELD, timestamp + 2_000_000L, stream.mag, k);
+        }
+        blockFormat.WriteBlock(channel);
+        size.bytes += blockFormat.GetPosition() - start;
+        size.records += 3 * n;
+    }
+
+    private void Append(int type, long timestamp, float[] values, int k) throws IOException {
+        blockFormat.Accept(type, timestamp, values[k], values[k + 1], values[k + 2]);
+        if (blockFormat.Remaining() == 0) {
+            blockFormat.WriteBlock(channel);
+        }
+    }
+}
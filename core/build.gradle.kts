@@ -0,0 +1,15 @@
+plugins {
+    `java-library`
+}
+
+// Pure Java so the fusion pipeline runs on the JVM (batch jobs, benchmarks,
+// desktop replay) as well as inside the Android app.
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    api(libs.mathmatrix)
+    testImplementation(libs.junit)
+}
@@ -1,31 +1,25 @@
 package dev.jescas.inertialtester.core.algorithms;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import dev.jescas.inertialtester.core.math.SlidingVariance;
 
 public class AccelerationIntegrator {
-    private final int windowSize;
     private final double std_threshold;
-    private final Queue<Double> accelerationWindow;
+    // Running statistics of the last windowSize samples, O(1) per sample
+    private final SlidingVariance accelerationWindow;
     private double velocity;
     private double position;
 
     public AccelerationIntegrator(int windowSize, double std_threshold){
-        this.windowSize = windowSize;
         this.std_threshold = std_threshold;
-        this.accelerationWindow = new LinkedList<>();
+        this.accelerationWindow = new SlidingVariance(windowSize);
         this.velocity = 0.0;
         this.position = 0.0;
     }
 
     // Add acceleration sample and perform integration
     public void Feed(double acceleration, double deltaTime) {
-        accelerationWindow.add(acceleration);
-
-        // Ensure the window size doesn't exceed the specified windowSize
-        if (accelerationWindow.size() > windowSize) {
-            accelerationWindow.poll();
-        }
+        // Evicts the oldest sample once the window is full
+        accelerationWindow.Add(acceleration);
         if (!DetectStop()) {
             // Simple integration: v = v0 + a * dt
             velocity += acceleration * deltaTime;
@@ -37,23 +31,10 @@ public class AccelerationIntegrator {
 
     // Detect if the standard deviation of acceleration is below the threshold, indicating a stop
     private boolean DetectStop() {
-        if (accelerationWindow.size() < windowSize) {
+        if (!accelerationWindow.IsFull()) {
             return false; // Not enough samples to make a decision
         }
-
-        double mean = 0.0;
-        for (double acc : accelerationWindow) {
-            mean += acc;
-        }
-        mean /= accelerationWindow.size();
-
-        double variance = 0.0;
-        for (double acc : accelerationWindow) {
-            variance += Math.pow(acc - mean, 2);
-        }
-        variance /= accelerationWindow.size();
-
-        return Math.sqrt(variance) < std_threshold;
+        return accelerationWindow.GetStdDev() < std_threshold;
     }
 
     // Return the current velocity
@@ -0,0 +1,265 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+/**
+ * Step detector with a threshold that follows the signal and a minimum
+ * step interval that follows the cadence, so slow walkers and runners are
+ * counted with the same settings.
+ * <ul>
+ * <li>Envelope: exponential mean and variance of the input, the threshold
+ * is mean + k * std, never less than a minimum amplitude above the mean
+ * so standing still counts nothing.</li>
+ * <li>Step: the maximum of a run above the threshold, closed when the
+ * signal falls back under the mean, rejected if it follows the previous
+ * step by less than half the current step period.</li>
+ * <li>Cadence: autocorrelation of the mean removed input, averaged down
+ * to about {@link #CADENCE_RATE} Hz, over a sliding window, each lag sum
+ * updated incrementally per decimated sample; the best lag is searched a
+ * few times per second and refined between lags.</li>
+ * </ul>
+ * The number of lags is set by the decimated rate, so the per sample cost
+ * is O(1) amortized whatever the input rate and window length (about 80
+ * multiply-adds per decimated sample), and nothing is allocated after
+ * construction.
+ */
+public class AdaptiveStepDetector implements IStepDetector {
+    // Shortest and longest step period searched by the cadence estimate
+    private static final double MIN_STEP_PERIOD = 0.25;  // 240 steps/min
+    private static final double MAX_STEP_PERIOD = 1.5;   // 40 steps/min
+    // Normalized autocorrelation needed to trust a period
+    private static final double MIN_CORRELATION = 0.4;
+    // Fraction of the best autocorrelation peak a period needs, lower for the current one
+    private static final double PEAK_FRACTION = 0.9;
+    private static final double CURRENT_PEAK_FRACTION = 0.8;
+    // Fraction of the step period a new step must wait for
+    private static final double MIN_INTERVAL_FRACTION = 0.5;
+    // Rate the cadence is estimated at (Hz), far above the step frequencies
+    public static final double CADENCE_RATE = 25.0;
+
+    private final double sampleRate;
+    private final double thresholdFactor;
+    private final double minAmplitude;
+    private final double alpha;  // Envelope smoothing per sample
+
+    // Envelope
+    private double mean;
+    private double variance;
+    private boolean primed = false;
+
+    // Current peak candidate and valley since the last step
+    private boolean above = false;
+    private double candidateMax;
+    private long candidateTimestamp;
+    private double valley = Double.POSITIVE_INFINITY;
+    private long lastStepTimestamp;
+
+    private int steps = 0;
+    private double stepMax = Double.NaN;
+    private double stepMin = Double.NaN;
+
+    // Cadence: input samples averaged per decimated sample, and their running sum
+    private final int decimation;
+    private final double cadenceRate;
+    private double pendingSum = 0;
+    private int pendingCount = 0;
+    // Ring of decimated samples and one running sum per lag
+    private final int window;
+    private final int minLag;
+    private final int maxLag;
+    private final int hop;
+    private final double[] ring;
+    private final double[] lagSums;
+    private long count = 0;  // Decimated samples
+    private double period = Double.NaN;  // Seconds, NaN while unknown
+
+    public AdaptiveStepDetector(double sampleRate) {
+        this(sampleRate, 0.6, 0.25, 2.0, 4.0);
+    }
+
+    /**
+     * @param sampleRate       nominal input rate (Hz), sizes the envelope and the lags
+     * @param thresholdFactor  threshold above the mean in standard deviations
+     * @param minAmplitude     smallest threshold above the mean (m/s^2)
+     * @param envelopeSeconds  time constant of the envelope
+     * @param windowSeconds    autocorrelation window
+     */
+    public AdaptiveStepDetector(double sampleRate, double thresholdFactor, double minAmplitude,
+                                double envelopeSeconds, double windowSeconds) {
+        this.sampleRate = sampleRate;
+        this.thresholdFactor = thresholdFactor;
+        this.minAmplitude = minAmplitude;
+        this.alpha = 1.0 / Math.max(1.0, envelopeSeconds * sampleRate);
+        this.decimation = Math.max(1, (int) Math.round(sampleRate / CADENCE_RATE));
+        this.cadenceRate = sampleRate / decimation;
+        this.minLag = Math.max(1, (int) Math.floor(MIN_STEP_PERIOD * cadenceRate));
+        this.maxLag = Math.max(minLag + 1, (int) Math.ceil(MAX_STEP_PERIOD * cadenceRate));
+        this.window = Math.max(maxLag + 1, (int) Math.round(windowSeconds * cadenceRate));
+        this.hop = Math.max(1, (int) (cadenceRate / 4));
+        this.ring = new double[window + maxLag + 1];
+        this.lagSums = new double[maxLag + 1];
+    }
+
+    @Override
+    public boolean Feed(double raw, long timestamp) {
+        if (!primed) {
+            mean = raw;
+            primed = true;
+        }
+        double deviation = raw - mean;
+        mean += alpha * deviation;
+        variance = (1 - alpha) * (variance + alpha * deviation * deviation);
+
+        // Box average: enough low pass before decimating, steps are below 4 Hz
+        pendingSum += raw - mean;
+        if (++pendingCount == decimation) {
+            UpdateAutocorrelation(pendingSum / decimation);
+            pendingSum = 0;
+            pendingCount = 0;
+            if (count % hop == 0 && count >= window) {
+                EstimatePeriod();
+            }
+        }
+
+        valley = Math.min(valley, raw);
+        double threshold = mean + Math.max(thresholdFactor * Math.sqrt(variance), minAmplitude);
+        if (!above) {
+            if (raw > threshold) {
+                above = true;
+                candidateMax = raw;
+                candidateTimestamp = timestamp;
+            }
+            return false;
+        }
+        if (raw > candidateMax) {
+            candidateMax = raw;
+            candidateTimestamp = timestamp;
+        }
+        if (raw >= mean) {
+            return false;
+        }
+        // Back under the mean: the run is over
+        above = false;
+        double minInterval = Double.isNaN(period) ? MIN_STEP_PERIOD : MIN_INTERVAL_FRACTION * period;
+        if (steps > 0 && (candidateTimestamp - lastStepTimestamp) * 1e-9 < minInterval) {
+            return false;
+        }
+        steps++;
+        stepMax = candidateMax;
+        stepMin = valley;
+        valley = Double.POSITIVE_INFINITY;
+        lastStepTimestamp = candidateTimestamp;
+        return true;
+    }
+
+    // Slide the window by one sample: add the products of the new sample, drop those of the oldest
+    private void UpdateAutocorrelation(double value) {
+        int size = ring.length;
+        int head = (int) (count % size);
+        ring[head] = value;
+        boolean full = count >= window;
+        int oldest = (int) ((count - window + size) % size);
+        double dropped = ring[oldest];
+        AddProducts(value, head, (int) Math.min(maxLag, count));
+        if (full) {
+            AddProducts(-dropped, oldest, (int) Math.min(maxLag, count - window));
+        }
+        count++;
+    }
+
+    // lagSums[lag] += value * ring[from - lag] for lag 0..lags, split at the ring wrap so both loops are branch free
+    private void AddProducts(double value, int from, int lags) {
+        int size = ring.length;
+        int direct = Math.min(lags, from);
+        for (int lag = 0; lag <= direct; lag++) {
+            lagSums[lag] += value * ring[from - lag];
+        }
+        for (int lag = direct + 1; lag <= lags; lag++) {
+            lagSums[lag] += value * ring[from - lag + size];
+        }
+    }
+
+    /*
+     * First peak within 90% of the best one, so the stride does not win over
+     * the step; 80% for the peak at the current period, so an asymmetric gait
+     * does not flip between step and stride from one window to the next.
+     * Peaks are refined by a parabola through their neighbours: a lag is
+     * 40 ms at 25 Hz, too coarse for a running cadence.
+     */
+    private void EstimatePeriod() {
+        double energy = lagSums[0];
+        if (energy <= 0) {
+            period = Double.NaN;
+            return;
+        }
+        double best = 0;
+        for (int lag = minLag; lag <= maxLag; lag++) {
+            best = Math.max(best, lagSums[lag]);
+        }
+        if (best / energy < MIN_CORRELATION) {
+            period = Double.NaN;
+            return;
+        }
+        double bestPeak = 0;
+        for (int lag = minLag; lag <= maxLag; lag++) {
+            if (IsLocalMax(lag)) {
+                bestPeak = Math.max(bestPeak, PeakHeight(lag));
+            }
+        }
+        double current = period * cadenceRate;  // NaN while unknown, never near
+        for (int lag = minLag; lag <= maxLag; lag++) {
+            if (!IsLocalMax(lag)) {
+                continue;
+            }
+            double fraction = Math.abs(lag - current) <= 1 ? CURRENT_PEAK_FRACTION : PEAK_FRACTION;
+            if (PeakHeight(lag) >= fraction * bestPeak) {
+                period = (lag + PeakOffset(lag)) / cadenceRate;
+                return;
+            }
+        }
+    }
+
+    private boolean IsLocalMax(int lag) {
+        double r = lagSums[lag];
+        return lag == minLag || (r >= lagSums[lag - 1] && (lag == maxLag || r >= lagSums[lag + 1]));
+    }
+
+    // Vertex of the parabola through lag - 1, lag, lag + 1, in lags from lag
+    private double PeakOffset(int lag) {
+        if (lag == minLag || lag == maxLag) {
+            return 0;
+        }
+        double curvature = lagSums[lag - 1] - 2 * lagSums[lag] + lagSums[lag + 1];
+        return curvature < 0 ? 0.5 * (lagSums[lag - 1] - lagSums[lag + 1]) / curvature : 0;
+    }
+
+    private double PeakHeight(int lag) {
+        if (lag == minLag || lag == maxLag) {
+            return lagSums[lag];
+        }
+        return lagSums[lag] - 0.25 * (lagSums[lag - 1] - lagSums[lag + 1]) * PeakOffset(lag);
+    }
+
+    @Override
+    public int GetStepCount() {
+        return steps;
+    }
+
+    @Override
+    public double GetStepMax() {
+        return stepMax;
+    }
+
+    @Override
+    public double GetStepMin() {
+        return stepMin;
+    }
+
+    // Steps per minute from the autocorrelation, NaN while the signal is not periodic
+    public double GetCadence() {
+        return 60.0 / period;
+    }
+
+    // Current threshold above which a step peak is searched
+    public double GetThreshold() {
+        return mean + Math.max(thresholdFactor * Math.sqrt(variance), minAmplitude);
+    }
+}
@@ -0,0 +1,301 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.ejml.data.DMatrix6;
+import org.ejml.data.DMatrix6x6;
+import org.ejml.data.FMatrix3;
+import org.ejml.dense.fixed.CommonOps_DDF6;
+
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+/**
+ * Error-state extended Kalman filter for attitude and gyroscope bias.
+ * The nominal quaternion is propagated with the bias corrected gyroscope,
+ * the filter tracks 6 error states: the attitude error (rad, body frame)
+ * and the bias error (rad/s). Accelerometer and magnetometer directions
+ * are applied as sequential scalar updates, the magnetometer only
+ * corrects heading so magnetic disturbances cannot tilt the estimate.
+ * Covariance and workspaces are EJML fixed size matrices allocated once,
+ * {@link #Feed} does not allocate.
+ */
+public class ErrorStateKalmanFilter implements IOrientationEstimator {
+    public static final double GRAVITY = 9.80665;
+
+    private final double gyroNoise;  // Gyroscope noise density (rad/s/sqrt(Hz))
+    private final double biasNoise;  // Bias random walk (rad/s^2/sqrt(Hz))
+    private final double accNoise;   // Accelerometer direction noise (std)
+    private final double magNoise;   // Magnetometer direction noise (std)
+
+    // Nominal state
+    private double qw = 1, qx = 0, qy = 0, qz = 0;
+    private double bx, by, bz;
+    private boolean initialized = false;
+
+    private final DMatrix6x6 P = new DMatrix6x6();  // Error covariance
+    private final DMatrix6x6 F = new DMatrix6x6();  // Error transition
+    private final DMatrix6 dx = new DMatrix6();     // Error state of the current step
+
+    // Workspaces
+    private final DMatrix6x6 tmpP = new DMatrix6x6();
+    private final DMatrix6 H = new DMatrix6();
+    private final DMatrix6 PHt = new DMatrix6();
+    private final DMatrix6 K = new DMatrix6();
+    private final double[] R = new double[9];  // Body to earth rotation, row-major
+
+    public ErrorStateKalmanFilter() {
+        this(0.005, 1e-4, 0.05, 0.1);
+    }
+
+    /**
+     * @param gyroNoise gyroscope noise density (rad/s/sqrt(Hz))
+     * @param biasNoise gyroscope bias random walk (rad/s^2/sqrt(Hz))
+     * @param accNoise  accelerometer direction noise, grows with linear acceleration
+     * @param magNoise  magnetometer direction noise
+     */
+    public ErrorStateKalmanFilter(double gyroNoise, double biasNoise, double accNoise, double magNoise) {
+        this.gyroNoise = gyroNoise;
+        this.biasNoise = biasNoise;
+        this.accNoise = accNoise;
+        this.magNoise = magNoise;
+        Reset();
+    }
+
+    public void Reset() {
+        qw = 1;
+        qx = qy = qz = 0;
+        bx = by = bz = 0;
+        initialized = false;
+        CommonOps_DDF6.fill(P, 0);
+        P.a11 = P.a22 = P.a33 = 1e-2;
+        P.a44 = P.a55 = P.a66 = 2.5e-3;
+        CommonOps_DDF6.setIdentity(F);
+    }
+
+    @Override
+    public void Feed(FMatrix3 acc, FMatrix3 mag, FMatrix3 gyro, double dt) {
+        double an = Math.sqrt(acc.a1 * acc.a1 + acc.a2 * acc.a2 + acc.a3 * acc.a3);
+        double mn = Math.sqrt(mag.a1 * mag.a1 + mag.a2 * mag.a2 + mag.a3 * mag.a3);
+        if (!initialized) {
+            if (an > 0 && mn > 0) {
+                Align(acc.a1 / an, acc.a2 / an, acc.a3 / an, mag.a1 / mn, mag.a2 / mn, mag.a3 / mn);
+            }
+            return;
+        }
+        if (dt > 0) {
+            Predict(gyro.a1 - bx, gyro.a2 - by, gyro.a3 - bz, dt);
+        }
+
+        CommonOps_DDF6.fill(dx, 0);
+        RotationMatrix();
+        // Expected gravity direction in the body frame, third row of R
+        double gx = R[6], gy = R[7], gz = R[8];
+        if (an > 0) {
+            // Trust the accelerometer less while it measures motion
+            double deviation = an / GRAVITY - 1.0;
+            double r = accNoise * accNoise + deviation * deviation;
+            UpdateDirection(acc.a1 / an, acc.a2 / an, acc.a3 / an, gx, gy, gz, r, false, gx, gy, gz);
+        }
+        if (mn > 0) {
+            double mx = mag.a1 / mn, my = mag.a2 / mn, mz = mag.a3 / mn;
+            // Earth frame field folded onto the north-up plane, like Madgwick
+            double ex = R[0] * mx + R[1] * my + R[2] * mz;
+            double ey = R[3] * mx + R[4] * my + R[5] * mz;
+            double ez = R[6] * mx + R[7] * my + R[8] * mz;
+            double north = Math.sqrt(ex * ex + ey * ey);
+            double hx = north * R[0] + ez * R[6];
+            double hy = north * R[1] + ez * R[7];
+            double hz = north * R[2] + ez * R[8];
+            UpdateDirection(mx, my, mz, hx, hy, hz, magNoise * magNoise, true, gx, gy, gz);
+        }
+        Inject();
+    }
+
+    // Propagate the nominal quaternion and the error covariance
+    private void Predict(double wx, double wy, double wz, double dt) {
+        double ax = wx * dt, ay = wy * dt, az = wz * dt;
+        double angle = Math.sqrt(ax * ax + ay * ay + az * az);
+        double c = Math.cos(0.5 * angle);
+        double s = angle > 1e-12 ? Math.sin(0.5 * angle) / angle : 0.5;
+        MultiplyRight(c, s * ax, s * ay, s * az);
+
+        // F = [[I - [w dt x], -I dt], [0, I]]
+        F.a12 = az;
+        F.a13 = -ay;
+        F.a21 = -az;
+        F.a23 = ax;
+        F.a31 = ay;
+        F.a32 = -ax;
+        F.a14 = F.a25 = F.a36 = -dt;
+
+        // P = F * P * F' + Q
+        CommonOps_DDF6.mult(F, P, tmpP);
+        CommonOps_DDF6.multTransB(tmpP, F, P);
+        double qTheta = gyroNoise * gyroNoise * dt;
+        double qBias = biasNoise * biasNoise * dt;
+        P.a11 += qTheta;
+        P.a22 += qTheta;
+        P.a33 += qTheta;
+        P.a44 += qBias;
+        P.a55 += qBias;
+        P.a66 += qBias;
+    }
+
+    /**
+     * Three scalar updates of a measured unit vector z against its expected
+     * body frame value h: z = h + [h x] dtheta. When headingOnly, the
+     * attitude error is projected on the vertical axis (u, body frame).
+     */
+    private void UpdateDirection(double zx, double zy, double zz, double hx, double hy, double hz,
+                                 double r, boolean headingOnly, double ux, double uy, double uz) {
+        for (int i = 0; i < 3; i++) {
+            // Row i of the skew matrix [h x]
+            double sx, sy, sz, residual;
+            if (i == 0) {
+                sx = 0; sy = -hz; sz = hy; residual = zx - hx;
+            } else if (i == 1) {
+                sx = hz; sy = 0; sz = -hx; residual = zy - hy;
+            } else {
+                sx = -hy; sy = hx; sz = 0; residual = zz - hz;
+            }
+            if (headingOnly) {
+                double d = sx * ux + sy * uy + sz * uz;
+                sx = d * ux;
+                sy = d * uy;
+                sz = d * uz;
+            }
+            H.a1 = sx;
+            H.a2 = sy;
+            H.a3 = sz;
+            ScalarUpdate(residual, r);
+        }
+    }
+
+    // Kalman update for one row H (bias columns are zero)
+    private void ScalarUpdate(double residual, double r) {
+        CommonOps_DDF6.mult(P, H, PHt);
+        double S = CommonOps_DDF6.dot(H, PHt) + r;
+        // Residual against the error already estimated this step
+        double y = residual - CommonOps_DDF6.dot(H, dx);
+
+        // K = P * H' / S, P = P - K * (H * P), P is symmetric so H * P = PHt'
+        CommonOps_DDF6.divide(PHt, S, K);
+        CommonOps_DDF6.multAddOuter(1.0, P, -1.0, K, PHt, P);
+
+        // dx = dx + K * y
+        CommonOps_DDF6.scale(y, K);
+        CommonOps_DDF6.addEquals(dx, K);
+    }
+
+    // Move the error estimate into the nominal state and reset it
+    private void Inject() {
+        MultiplyRight(1.0, 0.5 * dx.a1, 0.5 * dx.a2, 0.5 * dx.a3);
+        bx += dx.a4;
+        by += dx.a5;
+        bz += dx.a6;
+    }
+
+    // q = q * (w, x, y, z), normalized
+    private void MultiplyRight(double w, double x, double y, double z) {
+        double nw = qw * w - qx * x - qy * y - qz * z;
+        double nx = qw * x + qx * w + qy * z - qz * y;
+        double ny = qw * y - qx * z + qy * w + qz * x;
+        double nz = qw * z + qx * y - qy * x + qz * w;
+        double norm = 1.0 / Math.sqrt(nw * nw + nx * nx + ny * ny + nz * nz);
+        qw = nw * norm;
+        qx = nx * norm;
+        qy = ny * norm;
+        qz = nz * norm;
+    }
+
+    private void RotationMatrix() {
+        R[0] = 1 - 2 * (qy * qy + qz * qz);
+        R[1] = 2 * (qx * qy - qw * qz);
+        R[2] = 2 * (qx * qz + qw * qy);
+        R[3] = 2 * (qx * qy + qw * qz);
+        R[4] = 1 - 2 * (qx * qx + qz * qz);
+        R[5] = 2 * (qy * qz - qw * qx);
+        R[6] = 2 * (qx * qz - qw * qy);
+        R[7] = 2 * (qy * qz + qw * qx);
+        R[8] = 1 - 2 * (qx * qx + qy * qy);
+    }
+
+    /**
+     * Initial attitude from one accelerometer/magnetometer pair (TRIAD):
+     * the rows of R are the earth axes seen from the body frame.
+     */
+    private void Align(double ax, double ay, double az, double mx, double my, double mz) {
+        // West = up x magnetic field
+        double wx = ay * mz - az * my;
+        double wy = az * mx - ax * mz;
+        double wz = ax * my - ay * mx;
+        double wn = Math.sqrt(wx * wx + wy * wy + wz * wz);
+        if (wn == 0) {
+            return;
+        }
+        wx /= wn;
+        wy /= wn;
+        wz /= wn;
+        // North = west x up
+        double nx = wy * az - wz * ay;
+        double ny = wz * ax - wx * az;
+        double nz = wx * ay - wy * ax;
+
+        double trace = nx + wy + az;
+        if (trace > 0) {
+            double s = 2 * Math.sqrt(trace + 1);
+            qw = 0.25 * s;
+            qx = (ay - wz) / s;
+            qy = (nz - ax) / s;
+            qz = (wx - ny) / s;
+        } else if (nx > wy && nx > az) {
+            double s = 2 * Math.sqrt(1 + nx - wy - az);
+            qw = (ay - wz) / s;
+            qx = 0.25 * s;
+            qy = (ny + wx) / s;
+            qz = (nz + ax) / s;
+        } else if (wy > az) {
+            double s = 2 * Math.sqrt(1 + wy - nx - az);
+            qw = (nz - ax) / s;
+            qx = (ny + wx) / s;
+            qy = 0.25 * s;
+            qz = (wz + ay) / s;
+        } else {
+            double s = 2 * Math.sqrt(1 + az - nx - wy);
+            qw = (wx - ny) / s;
+            qx = (nz + ax) / s;
+            qy = (wz + ay) / s;
+            qz = 0.25 * s;
+        }
+        MultiplyRight(1, 0, 0, 0);
+        initialized = true;
+    }
+
+    @Override
+    public Quaternion GetQuaternion(Quaternion dst) {
+        return dst.set((float) qw, (float) qx, (float) qy, (float) qz);
+    }
+
+    // Store roll, pitch and yaw (degrees) in dst without allocating
+    @Override
+    public FMatrix3 GetEulerAngles(FMatrix3 dst) {
+        double roll = Math.atan2(2 * (qw * qx + qy * qz), 1 - 2 * (qx * qx + qy * qy));
+        double sinPitch = 2 * (qw * qy - qz * qx);
+        double pitch = Math.abs(sinPitch) >= 1 ? Math.copySign(Math.PI / 2, sinPitch) : Math.asin(sinPitch);
+        double yaw = Math.atan2(2 * (qw * qz + qx * qy), 1 - 2 * (qy * qy + qz * qz));
+        dst.a1 = (float) Math.toDegrees(roll);
+        dst.a2 = (float) Math.toDegrees(pitch);
+        dst.a3 = (float) Math.toDegrees(yaw);
+        return dst;
+    }
+
+    // Estimated gyroscope bias (rad/s)
+    public FMatrix3 GetBias(FMatrix3 dst) {
+        dst.a1 = (float) bx;
+        dst.a2 = (float) by;
+        dst.a3 = (float) bz;
+        return dst;
+    }
+
+    public boolean IsInitialized() {
+        return initialized;
+    }
+}
@@ -8,52 +8,76 @@ import org.ejml.dense.fixed.NormOps_FDF3;
 
 import dev.jescas.inertialtester.core.math.Quaternion;
 
-public class FactoredQuaternionAlgorithm {
+public class FactoredQuaternionAlgorithm implements IOrientationEstimator {
     private Quaternion quaternion = new Quaternion(1,0,0,0);
+    // Scratch quaternions reused on every Feed
+    private final Quaternion qe = Quaternion.identity();
+    private final Quaternion qr = Quaternion.identity();
+    private final Quaternion qa = Quaternion.identity();
+    private final Quaternion magQ = Quaternion.identity();
+    private final Quaternion M = Quaternion.identity();
+    private final Quaternion tmp = Quaternion.identity();
+
+    // FQA is a static estimator, the gyroscope is not used
+    @Override
+    public void Feed(FMatrix3 acc, FMatrix3 mag, FMatrix3 gyro, double dt) {
+        Feed(acc, mag);
+    }
 
     // TODO: Input accelerometer, magnetometer data
     public void Feed(FMatrix3 acc_orig, FMatrix3 mag_orig) {
         // Normalize vectors
-        FMatrix3 acc = acc_orig.copy();
-        FMatrix3 mag = mag_orig.copy();
-        NormOps_FDF3.normalizeF(acc);
-        NormOps_FDF3.normalizeF(mag);
+        float accNorm = (float) Math.sqrt(acc_orig.a1 * acc_orig.a1 + acc_orig.a2 * acc_orig.a2 + acc_orig.a3 * acc_orig.a3);
+        float magNorm = (float) Math.sqrt(mag_orig.a1 * mag_orig.a1 + mag_orig.a2 * mag_orig.a2 + mag_orig.a3 * mag_orig.a3);
+        float ax = acc_orig.a1 / accNorm;
+        float az = acc_orig.a3 / accNorm;
         // Elevation quaternion
-        float sin_th = -acc.a1;
-        float cos_th = (float) Math.sqrt((1.0f - Math.pow(sin_th, 2.0f)));
+        float sin_th = -ax;
+        float cos_th = (float) Math.sqrt((1.0f - sin_th * sin_th));
 
         // Compute quaternion of elevation
         float cos_th2 = (float) Math.sqrt((1.0f + cos_th)/2.0f);
         float sin_th2 = Sign(sin_th) * (float) Math.sqrt((1.0f - cos_th)/2.0f);
 
         // Elevation quaternion (rotation about x-axis)
-        Quaternion qe = new Quaternion(cos_th2, 0, sin_th2, 0);
+        qe.set(cos_th2, 0, sin_th2, 0);
         // Compute quaternion of roll
-        Quaternion qr = Quaternion.identity();
+        qr.setIdentity();
 
         if(cos_th != 0) {
-            float sin_ph = acc.a1/cos_th;
-            float cos_ph = acc.a3/cos_th;
+            float sin_ph = ax/cos_th;
+            float cos_ph = az/cos_th;
             float cos2h_ph = (float) Math.sqrt((1.0f + cos_ph)/2.0f);
             float sin2h_ph = Sign(sin_ph) * (float) Math.sqrt((1.0f - cos_ph)/2.0f);
-            qr =  new Quaternion(cos2h_ph, sin2h_ph, 0, 0);
+            qr.set(cos2h_ph, sin2h_ph, 0, 0);
         }
 
         // Azimuth quaternion (rotation about z-axis)
-        Quaternion magQ = new Quaternion(0,mag.a1,mag.a2,mag.a3);
-        Quaternion M = qe.mult(qr).mult(magQ).mult(qr.conjugate()).mult(qe.conjugate());
+        magQ.set(0, mag_orig.a1 / magNorm, mag_orig.a2 / magNorm, mag_orig.a3 / magNorm);
+        // M = qe * qr * magQ * qr' * qe'
+        Quaternion.multInto(qe, qr, M);
+        Quaternion.multInto(M, magQ, M);
+        Quaternion.multInto(M, tmp.set(qr).conjugateInPlace(), M);
+        Quaternion.multInto(M, tmp.set(qe).conjugateInPlace(), M);
         double Mx = M.x()/ Math.sqrt(M.x()*M.x() + M.y()*M.y());
         double My = M.y()/ Math.sqrt(M.x()*M.x() + M.y()*M.y());
         float sin_ah = (float) Mx;
         float cos_ah = (float) -My;
         float cos2h_ah = (float) Math.sqrt((1.0f + cos_ah)/2.0f);
         float sin2h_ah = Sign(sin_ah) * (float) Math.sqrt((1.0f - cos_ah)/2.0f);
-        Quaternion qa =  new Quaternion(cos2h_ah, 0, 0, sin2h_ah);
-        quaternion = qa.mult(qe).mult(qr);
+        qa.set(cos2h_ah, 0, 0, sin2h_ah);
+        Quaternion.multInto(qa, qe, quaternion);
+        Quaternion.multInto(quaternion, qr, quaternion);
     }
 
     // TODO: Get Euler Angles
     public FMatrix3 GetEulerAngles(){
+        return GetEulerAngles(new FMatrix3());
+    }
+
+    // Store roll, pitch and yaw (degrees) in dst without allocating
+    @Override
+    public FMatrix3 GetEulerAngles(FMatrix3 dst){
         float w = quaternion.w();
         float x = quaternion.x();
         float y = quaternion.y();
@@ -69,13 +93,21 @@ public class FactoredQuaternionAlgorithm {
         float pitchDegrees = (float) (pitch * (180 / Math.PI));
         float yawDegrees = (float) (yaw * (180 / Math.PI));
 
-        // Return as FMatrix3
-        return new FMatrix3(rollDegrees, pitchDegrees, yawDegrees);
+        dst.a1 = rollDegrees;
+        dst.a2 = pitchDegrees;
+        dst.a3 = yawDegrees;
+        return dst;
     }
 
     // TODO: Get quaternions
     public Quaternion GetQuaternion() {
-        return quaternion;
+        return GetQuaternion(Quaternion.identity());
+    }
+
+    // Copy the current orientation into dst without allocating
+    @Override
+    public Quaternion GetQuaternion(Quaternion dst) {
+        return dst.set(quaternion);
     }
 
     // UTILITY FUNCTION
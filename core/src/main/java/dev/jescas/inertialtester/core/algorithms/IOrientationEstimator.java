@@ -0,0 +1,26 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.ejml.data.FMatrix3;
+
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+/**
+ * Attitude estimator fed with one synchronized accelerometer, magnetometer
+ * and gyroscope sample per step. The orientation rotates body vectors to
+ * the earth frame (x magnetic north, z up): earth = q * body * q^-1.
+ */
+public interface IOrientationEstimator {
+    /**
+     * @param acc accelerometer (any unit, only the direction is used)
+     * @param mag magnetometer (any unit, only the direction is used)
+     * @param gyro angular rate in rad/s
+     * @param dt seconds since the previous sample
+     */
+    void Feed(FMatrix3 acc, FMatrix3 mag, FMatrix3 gyro, double dt);
+
+    // Copy the current orientation into dst
+    Quaternion GetQuaternion(Quaternion dst);
+
+    // Store roll, pitch and yaw (degrees) in dst
+    FMatrix3 GetEulerAngles(FMatrix3 dst);
+}
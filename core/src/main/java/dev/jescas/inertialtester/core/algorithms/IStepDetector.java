@@ -0,0 +1,21 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+/**
+ * Step detector fed with the filtered dynamic acceleration, one sample at
+ * a time. The extremes of the last step feed step length models.
+ */
+public interface IStepDetector {
+    /**
+     * @param timestamp sample time in nanoseconds
+     * @return true if this sample completed a counted step
+     */
+    boolean Feed(double raw, long timestamp);
+
+    int GetStepCount();
+
+    // Highest acceleration of the last counted step
+    double GetStepMax();
+
+    // Lowest acceleration of the last counted step
+    double GetStepMin();
+}
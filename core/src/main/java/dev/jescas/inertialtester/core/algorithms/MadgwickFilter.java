@@ -12,7 +12,7 @@ import org.ejml.dense.row.CommonOps_DDRM;
 
 import dev.jescas.inertialtester.core.math.Quaternion;
 
-public class MadgwickFilter {
+public class MadgwickFilter implements IOrientationEstimator {
     // Initialize quaternion
     private double qw = 1;
     private double qx = 0;
@@ -21,23 +21,23 @@ public class MadgwickFilter {
     // Gain filter
     private double beta = 4e-1;
 
+    @Override
     public void Feed(FMatrix3 acc_orig,  FMatrix3 mag_orig, FMatrix3 gyro_orig, double dt) {
-        FMatrix3 acc = acc_orig.copy();
-        FMatrix3 mag = mag_orig.copy();
-        NormOps_FDF3.normalizeF(acc);
-        NormOps_FDF3.normalizeF(mag);
+        // Normalize vectors in place of copies, the inputs are left untouched
+        float accNorm = (float) Math.sqrt(acc_orig.a1 * acc_orig.a1 + acc_orig.a2 * acc_orig.a2 + acc_orig.a3 * acc_orig.a3);
+        float magNorm = (float) Math.sqrt(mag_orig.a1 * mag_orig.a1 + mag_orig.a2 * mag_orig.a2 + mag_orig.a3 * mag_orig.a3);
 
-        float ax = acc.a1;
-        float ay = acc.a2;
-        float az = acc.a3;
+        float ax = acc_orig.a1 / accNorm;
+        float ay = acc_orig.a2 / accNorm;
+        float az = acc_orig.a3 / accNorm;
 
         float gx = gyro_orig.a1;
         float gy = gyro_orig.a2;
         float gz = gyro_orig.a3;
 
-        float mx = mag.a1;
-        float my = mag.a2;
-        float mz = mag.a3;
+        float mx = mag_orig.a1 / magNorm;
+        float my = mag_orig.a2 / magNorm;
+        float mz = mag_orig.a3 / magNorm;
 
         double bx = Math.sqrt(mx*mx+my*my);
         double bz = mz;
@@ -100,6 +100,12 @@ public class MadgwickFilter {
     }
 
     public FMatrix3 GetEulerAngles() {
+        return GetEulerAngles(new FMatrix3()); // Return the matrix containing the Euler angles
+    }
+
+    // Store roll, pitch and yaw (degrees) in dst without allocating
+    @Override
+    public FMatrix3 GetEulerAngles(FMatrix3 eulerAngles) {
         // Compute roll (x-axis rotation)
         double t0 = +2.0 * (qw * qx + qy * qz);
         double t1 = +1.0 - 2.0 * (qx * qx + qy * qy);
@@ -115,22 +121,26 @@ public class MadgwickFilter {
         double t4 = +1.0 - 2.0 * (qy * qy + qz * qz);
         double yaw = Math.atan2(t3, t4);
 
-        FMatrix3 eulerAngles = new FMatrix3();
-
         float rollDegrees = (float) (roll * (180 / Math.PI));
         float pitchDegrees = (float) (pitch * (180 / Math.PI));
         float yawDegrees = (float) (yaw * (180 / Math.PI));
 
         // Assigning the angles to the matrix
-        eulerAngles.set(0, 0, rollDegrees);   // Roll
-        eulerAngles.set(1, 0, pitchDegrees);  // Pitch
-        eulerAngles.set(2, 0, yawDegrees);    // Yaw
+        eulerAngles.a1 = rollDegrees;   // Roll
+        eulerAngles.a2 = pitchDegrees;  // Pitch
+        eulerAngles.a3 = yawDegrees;    // Yaw
 
-        return eulerAngles; // Return the matrix containing the Euler angles
+        return eulerAngles;
     }
 
     public Quaternion GetQuaternion() {
-        return new Quaternion((float) qw,(float)qx,(float)qy,(float)qz);
+        return GetQuaternion(Quaternion.identity());
+    }
+
+    // Copy the current orientation into dst without allocating
+    @Override
+    public Quaternion GetQuaternion(Quaternion dst) {
+        return dst.set((float) qw, (float) qx, (float) qy, (float) qz);
     }
 
 }
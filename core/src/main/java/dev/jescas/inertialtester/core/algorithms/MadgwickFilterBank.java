@@ -0,0 +1,272 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.ejml.data.FMatrix3;
+
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+/**
+ * N independent Madgwick filters updated together, structure of arrays:
+ * lane i of every input and state array belongs to filter i. An
+ * {@link #Update} runs the filter step as a sequence of short loops over
+ * the lanes (normalization, objective function, gradient, integration),
+ * each a few arithmetic operations without calls or branches: HotSpot only
+ * vectorizes loops that small, one long loop for the whole step stays
+ * scalar. Lanes are float, twice the lanes per vector of double and half
+ * the memory traffic; the sensors and the output quaternion are float
+ * anyway. The x, y, z gradient components are computed as J^T f from the
+ * six objective terms instead of the expanded form of
+ * {@link MadgwickFilter} (the w component keeps its expression), so lanes
+ * follow the scalar filter to float rounding, not bit for bit.
+ * Fill the input lanes ({@link #Load} or the arrays directly), then
+ * call {@link #Update}.
+ */
+public class MadgwickFilterBank {
+    // Inputs, one sample per lane
+    public final float[] accX, accY, accZ;
+    public final float[] gyroX, gyroY, gyroZ;
+    public final float[] magX, magY, magZ;
+    public final float[] dt;
+
+    // Quaternion per lane
+    private final float[] qw, qx, qy, qz;
+    private final float beta = 4e-1f;
+    private final int size;
+
+    // Intermediate lanes of the current update
+    private final float[] norm;
+    private final float[] bx, bz;
+    // Rotation matrix terms shared by the objective function
+    private final float[] r11, r12, r13, r23, r31, r33;
+    private final float[] f1, f2, f3, f4, f5, f6;
+    private final float[] gw, gx, gy, gz;
+
+    public MadgwickFilterBank(int size) {
+        this.size = size;
+        accX = new float[size];
+        accY = new float[size];
+        accZ = new float[size];
+        gyroX = new float[size];
+        gyroY = new float[size];
+        gyroZ = new float[size];
+        magX = new float[size];
+        magY = new float[size];
+        magZ = new float[size];
+        dt = new float[size];
+        qw = new float[size];
+        qx = new float[size];
+        qy = new float[size];
+        qz = new float[size];
+        norm = new float[size];
+        bx = new float[size];
+        bz = new float[size];
+        r11 = new float[size];
+        r12 = new float[size];
+        r13 = new float[size];
+        r23 = new float[size];
+        r31 = new float[size];
+        r33 = new float[size];
+        f1 = new float[size];
+        f2 = new float[size];
+        f3 = new float[size];
+        f4 = new float[size];
+        f5 = new float[size];
+        f6 = new float[size];
+        gw = new float[size];
+        gx = new float[size];
+        gy = new float[size];
+        gz = new float[size];
+        for (int i = 0; i < size; i++) {
+            qw[i] = 1;
+        }
+    }
+
+    public int Size() {
+        return size;
+    }
+
+    // Set the next sample of one lane
+    public void Load(int lane, FMatrix3 acc, FMatrix3 mag, FMatrix3 gyro, double dt) {
+        accX[lane] = acc.a1;
+        accY[lane] = acc.a2;
+        accZ[lane] = acc.a3;
+        gyroX[lane] = gyro.a1;
+        gyroY[lane] = gyro.a2;
+        gyroZ[lane] = gyro.a3;
+        magX[lane] = mag.a1;
+        magY[lane] = mag.a2;
+        magZ[lane] = mag.a3;
+        this.dt[lane] = (float) dt;
+    }
+
+    // One filter step on every lane
+    public void Update() {
+        Update(0, size);
+    }
+
+    /**
+     * One filter step on lanes [from, to). The acceleration and magnetic
+     * field lanes are normalized in place.
+     */
+    public void Update(int from, int to) {
+        Normalize(accX, accY, accZ, from, to);
+        Normalize(magX, magY, magZ, from, to);
+        for (int i = from; i < to; i++) {
+            bx[i] = (float) Math.sqrt(magX[i] * magX[i] + magY[i] * magY[i]);
+            bz[i] = magZ[i];
+        }
+        RotationTerms(from, to);
+        Objective(from, to);
+        Gradient(from, to);
+        Integrate(from, to);
+    }
+
+    private void Normalize(float[] x, float[] y, float[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            norm[i] = (float) Math.sqrt(x[i] * x[i] + y[i] * y[i] + z[i] * z[i]);
+        }
+        for (int i = from; i < to; i++) {
+            x[i] /= norm[i];
+            y[i] /= norm[i];
+            z[i] /= norm[i];
+        }
+    }
+
+    private void RotationTerms(int from, int to) {
+        for (int i = from; i < to; i++) {
+            r13[i] = qx[i] * qz[i] - qw[i] * qy[i];
+            r31[i] = qw[i] * qy[i] + qx[i] * qz[i];
+        }
+        for (int i = from; i < to; i++) {
+            r23[i] = qw[i] * qx[i] + qy[i] * qz[i];
+            r12[i] = qx[i] * qy[i] - qw[i] * qz[i];
+        }
+        for (int i = from; i < to; i++) {
+            r33[i] = 0.5f - qx[i] * qx[i] - qy[i] * qy[i];
+            r11[i] = 0.5f - qy[i] * qy[i] - qz[i] * qz[i];
+        }
+    }
+
+    // Gravity and earth field predicted by q minus the measured directions
+    private void Objective(int from, int to) {
+        for (int i = from; i < to; i++) {
+            f1[i] = 2 * r13[i] - accX[i];
+            f2[i] = 2 * r23[i] - accY[i];
+            f3[i] = 2 * r33[i] - accZ[i];
+        }
+        for (int i = from; i < to; i++) {
+            f4[i] = 2 * bx[i] * r11[i] + 2 * bz[i] * r13[i] - magX[i];
+        }
+        for (int i = from; i < to; i++) {
+            f5[i] = 2 * bx[i] * r12[i] + 2 * bz[i] * r23[i] - magY[i];
+        }
+        for (int i = from; i < to; i++) {
+            f6[i] = 2 * bx[i] * r31[i] + 2 * bz[i] * r33[i] - magZ[i];
+        }
+    }
+
+    /*
+     * x, y, z: J^T f grouped by objective, bx and bz terms
+     * w: the expression of MadgwickFilter
+     */
+    private void Gradient(int from, int to) {
+        for (int i = from; i < to; i++) {
+            float w = qw[i], x = qx[i], y = qy[i];
+            gw[i] = 2 * accX[i] * y - 2 * accY[i] * x + 4 * w * (x * x + y * y);
+        }
+        for (int i = from; i < to; i++) {
+            float w = qw[i], x = qx[i], y = qy[i], z = qz[i];
+            gw[i] += 4 * bx[i] * bx[i] * w * (y * y + z * z) - 8 * bx[i] * bz[i] * w * x * z;
+        }
+        for (int i = from; i < to; i++) {
+            gw[i] += 2 * bx[i] * (magY[i] * qz[i] - magZ[i] * qy[i]);
+        }
+        for (int i = from; i < to; i++) {
+            float w = qw[i], x = qx[i], y = qy[i];
+            gw[i] += 4 * bz[i] * bz[i] * w * (x * x + y * y) - 2 * bz[i] * magY[i] * x;
+        }
+
+        for (int i = from; i < to; i++) {
+            gx[i] = 2 * qz[i] * f1[i] + 2 * qw[i] * f2[i] - 4 * qx[i] * f3[i];
+        }
+        for (int i = from; i < to; i++) {
+            gx[i] += 2 * bx[i] * (qy[i] * f5[i] + qz[i] * f6[i]);
+        }
+        for (int i = from; i < to; i++) {
+            gx[i] += 2 * bz[i] * (qz[i] * f4[i] + qw[i] * f5[i] - 2 * qx[i] * f6[i]);
+        }
+
+        for (int i = from; i < to; i++) {
+            gy[i] = -2 * qw[i] * f1[i] + 2 * qz[i] * f2[i] - 4 * qy[i] * f3[i];
+        }
+        for (int i = from; i < to; i++) {
+            gy[i] += 2 * bx[i] * (-2 * qy[i] * f4[i] + qx[i] * f5[i] + qw[i] * f6[i]);
+        }
+        for (int i = from; i < to; i++) {
+            gy[i] += 2 * bz[i] * (-qw[i] * f4[i] + qz[i] * f5[i] - 2 * qy[i] * f6[i]);
+        }
+
+        for (int i = from; i < to; i++) {
+            gz[i] = 2 * qx[i] * f1[i] + 2 * qy[i] * f2[i];
+        }
+        for (int i = from; i < to; i++) {
+            gz[i] += 2 * bx[i] * (-2 * qz[i] * f4[i] - qw[i] * f5[i] + qx[i] * f6[i]);
+        }
+        for (int i = from; i < to; i++) {
+            gz[i] += 2 * bz[i] * (qx[i] * f4[i] + qy[i] * f5[i]);
+        }
+    }
+
+    // q += (q' - beta * gradient) * dt, q' = 0.5 q x (0, gyro) as in MadgwickFilter, then normalize
+    private void Integrate(int from, int to) {
+        for (int i = from; i < to; i++) {
+            gw[i] = 0.5f * -(qw[i] * gyroX[i] + qx[i] * gyroY[i] + qy[i] * gyroZ[i]) - beta * gw[i];
+        }
+        for (int i = from; i < to; i++) {
+            gx[i] = 0.5f * (qw[i] * gyroX[i] + qy[i] * gyroZ[i] - qz[i] * gyroY[i]) - beta * gx[i];
+        }
+        for (int i = from; i < to; i++) {
+            gy[i] = 0.5f * (qw[i] * gyroY[i] - qx[i] * gyroZ[i] + qz[i] * gyroX[i]) - beta * gy[i];
+        }
+        for (int i = from; i < to; i++) {
+            gz[i] = 0.5f * (qw[i] * gyroZ[i] + qx[i] * gyroY[i] - qy[i] * gyroX[i]) - beta * gz[i];
+        }
+        for (int i = from; i < to; i++) {
+            qw[i] += gw[i] * dt[i];
+            qx[i] += gx[i] * dt[i];
+            qy[i] += gy[i] * dt[i];
+            qz[i] += gz[i] * dt[i];
+        }
+        for (int i = from; i < to; i++) {
+            norm[i] = (float) Math.sqrt(qw[i] * qw[i] + qx[i] * qx[i] + qy[i] * qy[i] + qz[i] * qz[i]);
+        }
+        for (int i = from; i < to; i++) {
+            qw[i] /= norm[i];
+            qx[i] /= norm[i];
+            qy[i] /= norm[i];
+            qz[i] /= norm[i];
+        }
+    }
+
+    // Back to the identity orientation
+    public void Reset(int lane) {
+        qw[lane] = 1;
+        qx[lane] = qy[lane] = qz[lane] = 0;
+    }
+
+    // Copy the orientation of one lane into dst without allocating
+    public Quaternion GetQuaternion(int lane, Quaternion dst) {
+        return dst.set(qw[lane], qx[lane], qy[lane], qz[lane]);
+    }
+
+    // Roll, pitch and yaw (degrees) of one lane, as MadgwickFilter.GetEulerAngles
+    public FMatrix3 GetEulerAngles(int lane, FMatrix3 dst) {
+        double w = qw[lane], x = qx[lane], y = qy[lane], z = qz[lane];
+        double roll = Math.atan2(2.0 * (w * x + y * z), 1.0 - 2.0 * (x * x + y * y));
+        double pitch = Math.asin(Math.min(1.0, Math.max(2.0 * (w * y - z * x), -1.0)));
+        double yaw = Math.atan2(2.0 * (w * z + x * y), 1.0 - 2.0 * (y * y + z * z));
+        dst.a1 = (float) (roll * (180 / Math.PI));
+        dst.a2 = (float) (pitch * (180 / Math.PI));
+        dst.a3 = (float) (yaw * (180 / Math.PI));
+        return dst;
+    }
+}
@@ -0,0 +1,173 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+/**
+ * Peak based step detector: a peak is the maximum of a run above the
+ * threshold, it ends at the next rising sample, and counts as a step when
+ * it lasted 0.5 to 2 s since the start of the rise. Only primitives: the
+ * last three samples sit in fields and the running maximum of the current
+ * run is tracked as samples arrive, so every sample costs O(1) and nothing
+ * is allocated.
+ */
+public class StepDetection implements IStepDetector {
+    private final double threshold; // the threshold for peak detection
+    private boolean onThreshold; // flag to check if threshold is crossed
+    private boolean onStart; // flag for start detection
+    private boolean onEnd; // flag for end detection
+
+    // Last three samples, s0 the oldest, and how many are valid
+    private double s0, s1, s2;
+    private int history;
+
+    // Running maximum of the run above the threshold
+    private double runMax;
+    private int runArgMax;
+    private int runLength;
+
+    private double peak = Double.NaN; // the detected peak, NaN if none
+    private double start = Double.NaN; // start value of the peak
+    private double end = Double.NaN; // end value of the peak
+    private long startTimestamp;
+    private long endTimestamp;
+    private int peakIdxOffset; // offset for peak index
+    private int peakIdx; // index of the detected peak
+    private int startIdx; // index of the start
+    private int stepsCounter = 0;
+    private double stepMax = Double.NaN;
+    private double stepMin = Double.NaN;
+
+    // Constructor
+    public StepDetection(double threshold) {
+        this.threshold = threshold;
+    }
+
+    public int GetSteps(double raw, long timestamp){
+        Feed(raw, timestamp);
+        return stepsCounter;
+    }
+
+    @Override
+    public boolean Feed(double raw, long timestamp) {
+        if(DetectPeak(raw, timestamp)){
+            double deltatime = (endTimestamp - startTimestamp)*1e-9;
+            if(0.5 < deltatime && deltatime < 2.0){
+                stepsCounter++;
+                // Start of the rise and end of the fall are the valleys around the peak
+                stepMax = peak;
+                stepMin = Math.min(start, end);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Method to detect peak
+    public boolean DetectPeak(double raw, long timestamp) {
+        // Reset
+        if (!onEnd) {
+            peak = Double.NaN;
+            end = Double.NaN;
+        }
+
+        // Keep the last three values
+        s0 = s1;
+        s1 = s2;
+        s2 = raw;
+        if (history < 3) {
+            history++;
+        }
+        startIdx++;
+
+        // Mark Start
+        if (history == 3) {
+            if (!onStart && s2 > s1 && s1 > s0) {
+                start = raw;
+                startTimestamp = timestamp;
+                onStart = true;
+                startIdx = 0;
+            } else if (onStart && s2 < s1 && s1 < s0) {
+                onStart = false;
+            }
+        }
+
+        // Mark End
+        if (onEnd && history > 1 && s2 > s1) {
+            end = raw;
+            endTimestamp = timestamp;
+            peakIdx = startIdx - peakIdx;
+            onEnd = false;
+            return true;
+        }
+
+        // Detect peaks above the threshold
+        if (!onThreshold && raw >= threshold) {
+            onThreshold = true;
+            peakIdxOffset = startIdx;
+        } else if (onThreshold) {
+            if (raw < threshold) {
+                onThreshold = false;
+                if (runLength > 0) {
+                    peak = runMax;
+                    peakIdx = peakIdxOffset + runArgMax; // Adjust the peak index correctly
+                    runLength = 0;
+                    onEnd = true;
+                }
+            }
+            if (raw >= threshold) {
+                // First maximum wins on ties
+                if (runLength == 0 || raw > runMax) {
+                    runMax = raw;
+                    runArgMax = runLength;
+                }
+                runLength++;
+            }
+        }
+        return false;
+    }
+
+    // Value of the last peak, NaN once a new sample cleared it
+    public double GetPeak() {
+        return peak;
+    }
+
+    // Value at the start of the last rise, NaN before the first one
+    public double GetStart() {
+        return start;
+    }
+
+    // Value that ended the last peak, NaN once a new sample cleared it
+    public double GetEnd() {
+        return end;
+    }
+
+    public long GetStartTimestamp() {
+        return startTimestamp;
+    }
+
+    public long GetEndTimestamp() {
+        return endTimestamp;
+    }
+
+    public int GetPeakIndex() {
+        return peakIdx;
+    }
+
+    // Samples since the start of the last rise
+    public int GetStartIndex() {
+        return startIdx + 1;
+    }
+
+    @Override
+    public int GetStepCount() {
+        return stepsCounter;
+    }
+
+    @Override
+    public double GetStepMax() {
+        return stepMax;
+    }
+
+    @Override
+    public double GetStepMin() {
+        return stepMin;
+    }
+}
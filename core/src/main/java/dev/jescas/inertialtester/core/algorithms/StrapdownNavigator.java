@@ -0,0 +1,162 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.ejml.data.FMatrix3;
+
+import dev.jescas.inertialtester.core.math.Quaternion;
+import dev.jescas.inertialtester.core.math.SlidingVariance;
+
+/**
+ * 3-axis strapdown navigation: body acceleration is rotated to the earth
+ * frame with the orientation quaternion (earth = q * body * q^-1), gravity
+ * and the estimated bias are removed and velocity/position are integrated
+ * with the trapezoidal rule. A stop detector on the 3-axis acceleration
+ * variance and the mean angular rate triggers zero velocity updates
+ * (ZUPT); while stopped the remaining earth frame acceleration is learned
+ * as bias. Fixed size state, Feed() does not allocate.
+ */
+public class StrapdownNavigator {
+    public static final double GRAVITY = 9.80665;
+
+    private final double gravity;
+    private final double accStdThreshold;
+    private final double gyroThreshold;
+    private final double biasGain;
+
+    // Stop detector windows
+    private final SlidingVariance accX, accY, accZ;
+    private final SlidingVariance gyroRate;
+
+    private final FMatrix3 accEarth = new FMatrix3();
+    private final double[] bias = new double[3];
+    private final double[] acceleration = new double[3]; // Last corrected earth frame acceleration
+    private final double[] velocity = new double[3];
+    private final double[] position = new double[3];
+    private boolean stationary;
+    private long zeroVelocityUpdates;
+
+    // Half a second at 50 Hz, thresholds for a phone held while standing
+    public StrapdownNavigator() {
+        this(25, 0.15, 0.2, 0.05);
+    }
+
+    /**
+     * @param windowSize samples of the stop detector window
+     * @param accStdThreshold m/s^2, max standard deviation of the 3-axis acceleration while stopped
+     * @param gyroThreshold rad/s, max mean angular rate while stopped
+     * @param biasGain 0..1, weight of every stopped sample in the bias estimate
+     */
+    public StrapdownNavigator(int windowSize, double accStdThreshold, double gyroThreshold, double biasGain) {
+        this.gravity = GRAVITY;
+        this.accStdThreshold = accStdThreshold;
+        this.gyroThreshold = gyroThreshold;
+        this.biasGain = biasGain;
+        accX = new SlidingVariance(windowSize);
+        accY = new SlidingVariance(windowSize);
+        accZ = new SlidingVariance(windowSize);
+        gyroRate = new SlidingVariance(windowSize);
+    }
+
+    /**
+     * One navigation step.
+     * @param orientation body to earth rotation, e.g. MadgwickFilter output
+     * @param acc body acceleration including gravity (m/s^2)
+     * @param gyro body angular rate (rad/s)
+     * @param dt seconds since the previous step
+     */
+    public void Feed(Quaternion orientation, FMatrix3 acc, FMatrix3 gyro, double dt) {
+        accX.Add(acc.a1);
+        accY.Add(acc.a2);
+        accZ.Add(acc.a3);
+        gyroRate.Add(Math.sqrt(gyro.a1 * gyro.a1 + gyro.a2 * gyro.a2 + gyro.a3 * gyro.a3));
+        stationary = DetectStop();
+
+        orientation.rotateVectorInto(acc, accEarth);
+        double ax = accEarth.a1;
+        double ay = accEarth.a2;
+        double az = accEarth.a3 - gravity;
+
+        if (stationary) {
+            // ZUPT: the true acceleration is zero, what is left is bias
+            bias[0] += biasGain * (ax - bias[0]);
+            bias[1] += biasGain * (ay - bias[1]);
+            bias[2] += biasGain * (az - bias[2]);
+            acceleration[0] = acceleration[1] = acceleration[2] = 0.0;
+            velocity[0] = velocity[1] = velocity[2] = 0.0;
+            zeroVelocityUpdates++;
+            return;
+        }
+
+        Integrate(0, ax - bias[0], dt);
+        Integrate(1, ay - bias[1], dt);
+        Integrate(2, az - bias[2], dt);
+    }
+
+    // Trapezoidal rule on acceleration and velocity
+    private void Integrate(int axis, double a, double dt) {
+        double v = velocity[axis] + 0.5 * (acceleration[axis] + a) * dt;
+        position[axis] += 0.5 * (velocity[axis] + v) * dt;
+        velocity[axis] = v;
+        acceleration[axis] = a;
+    }
+
+    private boolean DetectStop() {
+        if (!accX.IsFull()) {
+            return false; // Not enough samples to make a decision
+        }
+        double variance = accX.GetVariance() + accY.GetVariance() + accZ.GetVariance();
+        return variance < accStdThreshold * accStdThreshold && gyroRate.GetMean() < gyroThreshold;
+    }
+
+    public void Reset() {
+        accX.Clear();
+        accY.Clear();
+        accZ.Clear();
+        gyroRate.Clear();
+        for (int i = 0; i < 3; i++) {
+            bias[i] = acceleration[i] = velocity[i] = position[i] = 0.0;
+        }
+        stationary = false;
+        zeroVelocityUpdates = 0;
+    }
+
+    // Earth frame position (m) relative to the start
+    public FMatrix3 GetPosition(FMatrix3 dst) {
+        dst.a1 = (float) position[0];
+        dst.a2 = (float) position[1];
+        dst.a3 = (float) position[2];
+        return dst;
+    }
+
+    // Earth frame velocity (m/s)
+    public FMatrix3 GetVelocity(FMatrix3 dst) {
+        dst.a1 = (float) velocity[0];
+        dst.a2 = (float) velocity[1];
+        dst.a3 = (float) velocity[2];
+        return dst;
+    }
+
+    // Estimated earth frame acceleration bias (m/s^2)
+    public FMatrix3 GetBias(FMatrix3 dst) {
+        dst.a1 = (float) bias[0];
+        dst.a2 = (float) bias[1];
+        dst.a3 = (float) bias[2];
+        return dst;
+    }
+
+    // Distance from the start in the horizontal plane (m)
+    public double GetHorizontalDistance() {
+        return Math.hypot(position[0], position[1]);
+    }
+
+    public double GetHorizontalSpeed() {
+        return Math.hypot(velocity[0], velocity[1]);
+    }
+
+    public boolean IsStationary() {
+        return stationary;
+    }
+
+    public long GetZeroVelocityUpdates() {
+        return zeroVelocityUpdates;
+    }
+}
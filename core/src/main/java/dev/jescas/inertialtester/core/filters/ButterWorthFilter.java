@@ -0,0 +1,126 @@
+package dev.jescas.inertialtester.core.filters;
+
+import java.util.Arrays;
+
+/**
+ * IIR filter from scipy style (b, a) coefficients, run as a transposed
+ * direct form II: one state per order updated in place, no history shifts.
+ * {@link #Process} filters a whole buffer with the state kept in locals
+ * for the 2nd and 3rd order filters of the app.
+ */
+public class ButterWorthFilter implements IPassFilter {
+    private final double[] a; // Normalized so a[0] = 1, padded to order + 1
+    private final double[] b;
+    private final double[] state;
+    private final int order;
+    private double output;
+
+    public ButterWorthFilter(double[] a, double[] b){
+        this.order = Math.max(a.length, b.length) - 1; // Ensure order is set correctly
+        this.a = new double[order + 1];
+        this.b = new double[order + 1];
+        for (int i = 0; i < a.length; i++) {
+            this.a[i] = a[i] / a[0];
+        }
+        for (int i = 0; i < b.length; i++) {
+            this.b[i] = b[i] / a[0];
+        }
+        state = new double[Math.max(order, 1)];
+    }
+
+    @Override
+    public void Update(double raw) {
+        output = b[0] * raw + state[0];
+        for (int k = 1; k < order; k++) {
+            state[k - 1] = b[k] * raw - a[k] * output + state[k];
+        }
+        if (order > 0) {
+            state[order - 1] = b[order] * raw - a[order] * output;
+        }
+    }
+
+    @Override
+    public double GetOutput(){
+        return output;
+    }
+
+    @Override
+    public void Process(double[] in, double[] out, int off, int len) {
+        if (len <= 0) {
+            return;
+        }
+        int end = off + len;
+        if (order == 2) {
+            double b0 = b[0], b1 = b[1], b2 = b[2], a1 = a[1], a2 = a[2];
+            double z0 = state[0], z1 = state[1];
+            for (int i = off; i < end; i++) {
+                double x = in[i];
+                double y = b0 * x + z0;
+                z0 = b1 * x - a1 * y + z1;
+                z1 = b2 * x - a2 * y;
+                out[i] = y;
+            }
+            state[0] = z0;
+            state[1] = z1;
+        } else if (order == 3) {
+            double b0 = b[0], b1 = b[1], b2 = b[2], b3 = b[3], a1 = a[1], a2 = a[2], a3 = a[3];
+            double z0 = state[0], z1 = state[1], z2 = state[2];
+            for (int i = off; i < end; i++) {
+                double x = in[i];
+                double y = b0 * x + z0;
+                z0 = b1 * x - a1 * y + z1;
+                z1 = b2 * x - a2 * y + z2;
+                z2 = b3 * x - a3 * y;
+                out[i] = y;
+            }
+            state[0] = z0;
+            state[1] = z1;
+            state[2] = z2;
+        } else {
+            for (int i = off; i < end; i++) {
+                Update(in[i]);
+                out[i] = output;
+            }
+            return;
+        }
+        output = out[end - 1];
+    }
+
+    public int GetOrder() {
+        return order;
+    }
+
+    // Back to rest, as constructed
+    public void Reset() {
+        Arrays.fill(state, 0.0);
+        output = 0.0;
+    }
+
+    /**
+     * Steady state for a unit step input (scipy lfilter_zi): with the state
+     * set to scale * zi the filter starts as if it had always seen scale.
+     * @param dst at least GetOrder() long
+     */
+    public double[] GetSteadyState(double[] dst) {
+        double sumA = 0, sumB = 0;
+        for (int i = 0; i <= order; i++) {
+            sumA += a[i];
+            sumB += b[i];
+        }
+        double y = sumB / sumA;
+        // z[k] = sum over j > k of (b[j] - a[j] * y)
+        double z = 0;
+        for (int k = order - 1; k >= 0; k--) {
+            z += b[k + 1] - a[k + 1] * y;
+            dst[k] = z;
+        }
+        return dst;
+    }
+
+    // state = scale * zi, zi from GetSteadyState
+    public void SetState(double[] zi, double scale) {
+        for (int k = 0; k < order; k++) {
+            state[k] = scale * zi[k];
+        }
+    }
+}
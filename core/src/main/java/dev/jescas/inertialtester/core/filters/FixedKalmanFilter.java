@@ -0,0 +1,123 @@
+package dev.jescas.inertialtester.core.filters;
+
+import org.ejml.data.DMatrix4;
+import org.ejml.data.DMatrix4x4;
+import org.ejml.dense.fixed.CommonOps_DDF4;
+
+/**
+ * Kalman filter with up to four states and a scalar measurement, built on
+ * EJML fixed size 4x4 operations. Models with fewer states leave the unused
+ * rows/columns at zero, which keeps them out of the estimate. All matrices
+ * and workspaces are allocated once in the constructor.
+ */
+public class FixedKalmanFilter implements IKalmanFilter {
+    public static final int MAX_STATES = 4;
+
+    private final int states;
+    private final DMatrix4x4 F = new DMatrix4x4();  // State transition matrix
+    private final DMatrix4x4 Q = new DMatrix4x4();  // Process noise covariance matrix
+    private final DMatrix4 H = new DMatrix4();      // Observation matrix (row vector)
+    private final double R;                         // Sensor noise covariance
+    private final DMatrix4 X = new DMatrix4();      // State vector
+    private final DMatrix4x4 P = new DMatrix4x4();  // Covariance matrix
+
+    // Workspaces
+    private final DMatrix4 tmpX = new DMatrix4();
+    private final DMatrix4x4 tmpP = new DMatrix4x4();
+    private final DMatrix4 PHt = new DMatrix4();
+    private final DMatrix4 HP = new DMatrix4();
+
+    // Same dynamic acceleration + bias model as KalmantFilter
+    public FixedKalmanFilter() {
+        this(2,
+                new double[]{1, 0, 0, 1},
+                new double[]{1e-4, 0, 0, 1e-6},
+                new double[]{1, 1},
+                1e-2,
+                new double[]{0, 9.63});
+    }
+
+    /**
+     * @param states number of states, at most {@link #MAX_STATES}
+     * @param f      row-major states x states transition matrix
+     * @param q      row-major states x states process noise
+     * @param h      observation row, states long
+     * @param r      measurement noise variance
+     * @param x0     initial state, states long. P starts as identity.
+     */
+    public FixedKalmanFilter(int states, double[] f, double[] q, double[] h, double r, double[] x0) {
+        if (states < 1 || states > MAX_STATES) {
+            throw new IllegalArgumentException("Supported states: 1.." + MAX_STATES);
+        }
+        if (f.length != states * states || q.length != states * states || h.length != states || x0.length != states) {
+            throw new IllegalArgumentException("Matrix dimensions do not match " + states + " states");
+        }
+        this.states = states;
+        this.R = r;
+        for (int i = 0; i < states; i++) {
+            for (int j = 0; j < states; j++) {
+                F.set(i, j, f[i * states + j]);
+                Q.set(i, j, q[i * states + j]);
+            }
+            H.set(i, 0, h[i]);
+            X.set(i, 0, x0[i]);
+            P.set(i, i, 1.0);
+        }
+    }
+
+    // Prediction step
+    @Override
+    public void Predict() {
+        // State prediction X = F * X
+        CommonOps_DDF4.mult(F, X, tmpX);
+        X.setTo(tmpX);
+
+        // Covariance prediction P = F * P * F' + Q
+        CommonOps_DDF4.mult(F, P, tmpP);
+        CommonOps_DDF4.multTransB(tmpP, F, P);
+        CommonOps_DDF4.addEquals(P, Q);
+    }
+
+    // Update step (measurement update)
+    @Override
+    public void Update(double raw) {
+        // Measurement residual y = z - H * X
+        double y = raw - CommonOps_DDF4.dot(H, X);
+
+        // Innovation covariance S = H * P * H' + R
+        CommonOps_DDF4.mult(P, H, PHt);
+        double S = CommonOps_DDF4.dot(H, PHt) + R;
+
+        // Kalman gain K = P * H' * inv(S), stored in PHt
+        CommonOps_DDF4.scale(1.0 / S, PHt);
+
+        // Covariance update P = P - K * (H * P), uses the prior P
+        CommonOps_DDF4.mult(H, P, HP);
+        CommonOps_DDF4.multAddOuter(1.0, P, -1.0, PHt, HP, P);
+
+        // State update X = X + K * y
+        CommonOps_DDF4.scale(y, PHt);
+        CommonOps_DDF4.addEquals(X, PHt);
+    }
+
+    public int GetStates() {
+        return states;
+    }
+
+    // Get a state variable
+    public double GetState(int index) {
+        return X.get(index, 0);
+    }
+
+    // Get dynamic acceleration (filtered result)
+    @Override
+    public double GetDynamicAcceleration() {
+        return X.a1;
+    }
+
+    // Get bias (gravity component)
+    @Override
+    public double GetBias() {
+        return X.a2;
+    }
+}
@@ -0,0 +1,12 @@
+package dev.jescas.inertialtester.core.filters;
+
+/**
+ * Scalar measurement Kalman filter that splits the accelerometer norm into
+ * dynamic acceleration and a slowly varying bias (gravity).
+ */
+public interface IKalmanFilter {
+    void Predict();
+    void Update(double raw);
+    double GetDynamicAcceleration();
+    double GetBias();
+}
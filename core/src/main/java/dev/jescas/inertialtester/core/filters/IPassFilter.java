@@ -0,0 +1,13 @@
+package dev.jescas.inertialtester.core.filters;
+
+public interface IPassFilter {
+    void Update(double raw);
+    double GetOutput();
+
+    /**
+     * Filter in[off, off + len) into out[off, off + len), continuing from the
+     * current state exactly like calling Update per sample. in and out may be
+     * the same array.
+     */
+    void Process(double[] in, double[] out, int off, int len);
+}
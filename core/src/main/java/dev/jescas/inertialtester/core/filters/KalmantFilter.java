@@ -0,0 +1,84 @@
+package dev.jescas.inertialtester.core.filters;
+
+/**
+ * Two state Kalman filter [dynamic acceleration, bias] with a scalar
+ * measurement. State and covariance live in primitive fields and the
+ * predict/update equations are unrolled, so a sample costs a few dozen
+ * flops and no allocation.
+ */
+public class KalmantFilter implements IKalmanFilter {
+    // State transition matrix F
+    private double f00 = 1, f01 = 0, f10 = 0, f11 = 1;
+    // Process noise covariance matrix Q
+    private double q00 = 1e-4, q01 = 0, q10 = 0, q11 = 1e-6;
+    // Observation matrix H (relates state to measurements)
+    private double h0 = 1, h1 = 1;
+    // Sensor noise covariance R (measurement noise)
+    private double r = 1e-2;
+    // State vector X = [dynamic acceleration, bias]
+    private double x0 = 0, x1 = 9.63;
+    // Covariance matrix P (identity for initial uncertainty)
+    private double p00 = 1, p01 = 0, p10 = 0, p11 = 1;
+
+    // Prediction step
+    @Override
+    public void Predict() {
+        // State prediction X = F * X
+        double nx0 = f00 * x0 + f01 * x1;
+        double nx1 = f10 * x0 + f11 * x1;
+        x0 = nx0;
+        x1 = nx1;
+
+        // Covariance prediction P = F * P * F' + Q
+        double fp00 = f00 * p00 + f01 * p10;
+        double fp01 = f00 * p01 + f01 * p11;
+        double fp10 = f10 * p00 + f11 * p10;
+        double fp11 = f10 * p01 + f11 * p11;
+        p00 = fp00 * f00 + fp01 * f01 + q00;
+        p01 = fp00 * f10 + fp01 * f11 + q01;
+        p10 = fp10 * f00 + fp11 * f01 + q10;
+        p11 = fp10 * f10 + fp11 * f11 + q11;
+    }
+
+    // Update step (measurement update)
+    @Override
+    public void Update(double raw) {
+        // Measurement residual y = z - H * X
+        double y = raw - (h0 * x0 + h1 * x1);
+
+        // P * H'
+        double pht0 = p00 * h0 + p01 * h1;
+        double pht1 = p10 * h0 + p11 * h1;
+
+        // Innovation covariance S = H * P * H' + R
+        double s = h0 * pht0 + h1 * pht1 + r;
+
+        // Kalman gain K = P * H' * inv(S)
+        double k0 = pht0 / s;
+        double k1 = pht1 / s;
+
+        // State update X = X + K * y
+        x0 += k0 * y;
+        x1 += k1 * y;
+
+        // Covariance update P = (I - K * H) * P = P - K * (H * P)
+        double hp0 = h0 * p00 + h1 * p10;
+        double hp1 = h0 * p01 + h1 * p11;
+        p00 -= k0 * hp0;
+        p01 -= k0 * hp1;
+        p10 -= k1 * hp0;
+        p11 -= k1 * hp1;
+    }
+
+    // Get dynamic acceleration (filtered result)
+    @Override
+    public double GetDynamicAcceleration() {
+        return x0; // Return the first state variable (dynamic acceleration)
+    }
+
+    // Get bias (gravity component)
+    @Override
+    public double GetBias() {
+        return x1; // Return the second state variable (bias)
+    }
+}
@@ -0,0 +1,72 @@
+package dev.jescas.inertialtester.core.filters;
+
+/**
+ * Offline forward-backward filtering with no phase lag, equivalent to
+ * scipy.signal.filtfilt(b, a, x) with its defaults: odd extension of
+ * 3 * max(len(a), len(b)) samples at both ends and both passes started
+ * from the steady state (lfilter_zi) of the first sample they see.
+ * The magnitude response is the squared one of the causal filter.
+ * Not thread safe, the padded workspace is reused between calls.
+ */
+public class ZeroPhaseFilter {
+    private final ButterWorthFilter filter;
+    private final double[] zi;
+    private final int padLength;
+    private double[] work = new double[0];
+
+    public ZeroPhaseFilter(double[] a, double[] b) {
+        filter = new ButterWorthFilter(a, b);
+        zi = filter.GetSteadyState(new double[Math.max(filter.GetOrder(), 1)]);
+        padLength = 3 * Math.max(a.length, b.length);
+    }
+
+    /**
+     * Filter in[off, off + len) into out[off, off + len), independently of
+     * previous calls. Signals not longer than the padding are padded with
+     * len - 1 samples instead of failing like scipy. in and out may be the
+     * same array.
+     */
+    public void Filter(double[] in, double[] out, int off, int len) {
+        if (len <= 0) {
+            return;
+        }
+        int pad = Math.min(padLength, len - 1);
+        int n = len + 2 * pad;
+        if (work.length < n) {
+            work = new double[n];
+        }
+        double[] ext = work;
+
+        // Odd extension: 2 * x[0] - x[pad..1], x, 2 * x[last] - x[last-1..last-pad]
+        double first = in[off], last = in[off + len - 1];
+        for (int i = 0; i < pad; i++) {
+            ext[i] = 2 * first - in[off + pad - i];
+            ext[pad + len + i] = 2 * last - in[off + len - 2 - i];
+        }
+        System.arraycopy(in, off, ext, pad, len);
+
+        // Forward pass
+        filter.SetState(zi, ext[0]);
+        filter.Process(ext, ext, 0, n);
+        Reverse(ext, n);
+        // Backward pass over the reversed output
+        filter.SetState(zi, ext[0]);
+        filter.Process(ext, ext, 0, n);
+
+        for (int i = 0; i < len; i++) {
+            out[off + i] = ext[n - 1 - pad - i];
+        }
+    }
+
+    public int GetPadLength() {
+        return padLength;
+    }
+
+    private static void Reverse(double[] values, int n) {
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            double tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package dev.jescas.inertialtester.core.math;
+
+import org.ejml.data.FMatrix3;
+
+/**
+ * Mutable quaternion stored as four primitive components (w, x, y, z).
+ * The allocating operations (mult, conjugate, ...) are kept for convenience,
+ * the *Into / *InPlace variants write into existing instances so they can be
+ * used inside the per-sample fusion loop without producing garbage.
+ */
+public class Quaternion {
+    private float w;
+    private float x;
+    private float y;
+    private float z;
+
+    // Constructor
+    public Quaternion(float w, float x, float y, float z) {
+        set(w, x, y, z);
+    }
+
+    // Identity quaternion
+    public static Quaternion identity() {
+        return new Quaternion(1.0f, 0.0f, 0.0f, 0.0f);
+    }
+
+    // Overwrite all components
+    public Quaternion set(float w, float x, float y, float z) {
+        this.w = w;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    // Copy the components of another quaternion
+    public Quaternion set(Quaternion other) {
+        return set(other.w, other.x, other.y, other.z);
+    }
+
+    // Reset to the identity rotation
+    public Quaternion setIdentity() {
+        return set(1.0f, 0.0f, 0.0f, 0.0f);
+    }
+
+    // Conjugate of the quaternion
+    public Quaternion conjugate() {
+        return new Quaternion(w, x, y, z).conjugateInPlace();
+    }
+
+    // Conjugate this quaternion without allocating
+    public Quaternion conjugateInPlace() {
+        x = -x;
+        y = -y;
+        z = -z;
+        return this;
+    }
+
+    // Normalize the quaternion
+    public Quaternion normalize() {
+        return new Quaternion(w, x, y, z).normalizeInPlace();
+    }
+
+    // Normalize this quaternion without allocating
+    public Quaternion normalizeInPlace() {
+        float norm = (float) Math.sqrt(normSquared());
+        if (norm == 0) {
+            throw new IllegalStateException("Cannot normalize a zero-length quaternion.");
+        }
+        w /= norm;
+        x /= norm;
+        y /= norm;
+        z /= norm;
+        return this;
+    }
+
+    // Inverse of the quaternion
+    public Quaternion inverse() {
+        return new Quaternion(w, x, y, z).inverseInPlace();
+    }
+
+    // Invert this quaternion without allocating
+    public Quaternion inverseInPlace() {
+        float normSquared = normSquared();
+        w = w / normSquared;
+        x = -x / normSquared;
+        y = -y / normSquared;
+        z = -z / normSquared;
+        return this;
+    }
+
+    // Compute the norm squared of the quaternion
+    private float normSquared() {
+        return (w * w + x * x + y * y + z * z);
+    }
+
+    // Multiply two quaternions
+    public Quaternion mult(Quaternion other) {
+        return multInto(this, other, new Quaternion(0.0f, 0.0f, 0.0f, 0.0f));
+    }
+
+    // dst = a * b, dst may be the same instance as a or b
+    public static Quaternion multInto(Quaternion a, Quaternion b, Quaternion dst) {
+        float w = a.w * b.w - a.x * b.x - a.y * b.y - a.z * b.z;
+        float x = a.w * b.x + a.x * b.w + a.y * b.z - a.z * b.y;
+        float y = a.w * b.y - a.x * b.z + a.y * b.w + a.z * b.x;
+        float z = a.w * b.z + a.x * b.y - a.y * b.x + a.z * b.w;
+        return dst.set(w, x, y, z);
+    }
+
+    // Rotate a vector using the quaternion
+    public FMatrix3 rotateVector(FMatrix3 vector) {
+        return rotateVectorInto(vector, new FMatrix3());
+    }
+
+    /**
+     * Rotate src by this quaternion (q * v * q^-1) and store the result in dst.
+     * Uses the equivalent rotation matrix directly instead of two quaternion
+     * products, src and dst may be the same instance.
+     */
+    public FMatrix3 rotateVectorInto(FMatrix3 src, FMatrix3 dst) {
+        // Scale by 1/|q|^2 so non unit quaternions behave like q * v * q^(-1)
+        float s = 2.0f / normSquared();
+        float xx = x * x * s, yy = y * y * s, zz = z * z * s;
+        float xy = x * y * s, xz = x * z * s, yz = y * z * s;
+        float wx = w * x * s, wy = w * y * s, wz = w * z * s;
+
+        float vx = src.a1;
+        float vy = src.a2;
+        float vz = src.a3;
+
+        dst.a1 = (1.0f - yy - zz) * vx + (xy - wz) * vy + (xz + wy) * vz;
+        dst.a2 = (xy + wz) * vx + (1.0f - xx - zz) * vy + (yz - wx) * vz;
+        dst.a3 = (xz - wy) * vx + (yz + wx) * vy + (1.0f - xx - yy) * vz;
+        return dst;
+    }
+
+    // Get Euler angles from the quaternion
+    public FMatrix3 getEulerAngles() {
+        return getEulerAnglesInto(new FMatrix3()); // Return the matrix containing the Euler angles
+    }
+
+    // Store roll, pitch and yaw (degrees) in dst
+    public FMatrix3 getEulerAnglesInto(FMatrix3 dst) {
+        float qw = w;
+        float qx = x;
+        float qy = y;
+        float qz = z;
+
+        // Compute roll (x-axis rotation)
+        double t0 = +2.0 * (qw * qx + qy * qz);
+        double t1 = +1.0 - 2.0 * (qx * qx + qy * qy);
+        double roll = Math.atan2(t0, t1);
+
+        // Compute pitch (y-axis rotation)
+        double t2 = +2.0 * (qw * qy - qz * qx);
+        t2 = Math.min(1.0, Math.max(t2, -1.0)); // Clamp t2 to the range [-1, 1]
+        double pitch = Math.asin(t2);
+
+        // Compute yaw (z-axis rotation)
+        double t3 = +2.0 * (qw * qz + qx * qy);
+        double t4 = +1.0 - 2.0 * (qy * qy + qz * qz);
+        double yaw = Math.atan2(t3, t4);
+
+        dst.a1 = (float) Math.toDegrees(roll);   // Roll
+        dst.a2 = (float) Math.toDegrees(pitch);  // Pitch
+        dst.a3 = (float) Math.toDegrees(yaw);    // Yaw
+        return dst;
+    }
+
+    // Getters for the quaternion components
+    public float w() {
+        return w;
+    }
+
+    public float x() {
+        return x;
+    }
+
+    public float y() {
+        return y;
+    }
+
+    public float z() {
+        return z;
+    }
+}
@@ -0,0 +1,88 @@
+package dev.jescas.inertialtester.core.math;
+
+/**
+ * Mean and variance of the last windowSize samples, kept in a primitive
+ * ring and updated incrementally (Welford style) when a sample enters or
+ * leaves the window: O(1) per sample whatever the window size. The running
+ * sums are recomputed from the ring once per window to stop rounding drift.
+ */
+public class SlidingVariance {
+    private final double[] window;
+    private int head;  // Slot of the next sample
+    private int count;
+    private int updates; // Since the last recompute
+    private double mean;
+    private double m2;   // Sum of squared deviations from the mean
+
+    public SlidingVariance(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        window = new double[windowSize];
+    }
+
+    public void Add(double value) {
+        if (count < window.length) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        } else {
+            // Replace the oldest sample, the count stays the same
+            double evicted = window[head];
+            double oldMean = mean;
+            mean += (value - evicted) / count;
+            m2 += (value - evicted) * (value - mean + evicted - oldMean);
+        }
+        window[head] = value;
+        head = head + 1 == window.length ? 0 : head + 1;
+
+        if (++updates >= window.length) {
+            Recompute();
+        }
+    }
+
+    private void Recompute() {
+        updates = 0;
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += window[i];
+        }
+        mean = sum / count;
+        double squares = 0.0;
+        for (int i = 0; i < count; i++) {
+            double d = window[i] - mean;
+            squares += d * d;
+        }
+        m2 = squares;
+    }
+
+    public void Clear() {
+        head = 0;
+        count = 0;
+        updates = 0;
+        mean = 0.0;
+        m2 = 0.0;
+    }
+
+    public int Size() {
+        return count;
+    }
+
+    public boolean IsFull() {
+        return count == window.length;
+    }
+
+    public double GetMean() {
+        return mean;
+    }
+
+    // Population variance of the samples in the window
+    public double GetVariance() {
+        return count == 0 ? 0.0 : Math.max(0.0, m2 / count);
+    }
+
+    public double GetStdDev() {
+        return Math.sqrt(GetVariance());
+    }
+}
@@ -0,0 +1,192 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends sensor records to a file from a dedicated writer thread.
+ * The caller only copies the record into a {@link RecordRing}; the writer
+ * thread drains the ring into the block of an {@link IBlockFormat} (a reused
+ * direct buffer) and hands full blocks to a FileChannel. Partial blocks are flushed periodically and the file is
+ * fsynced according to {@link WriterOptions}, so memory stays bounded and a
+ * crash loses at most about one block. When the ring is full records are
+ * dropped instead of blocking the caller, {@link #GetDroppedCount()} reports
+ * how many.
+ */
+public class AsyncRecordWriter {
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+
+    private final WriterOptions options;
+    private final RecordRing ring;
+    private final FileChannel channel;
+    private final IBlockFormat format;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    // Producer side counters
+    private volatile long offered;
+    private volatile long dropped;
+    private volatile int maxBacklog;
+    // Writer side counter
+    private volatile long written;
+    private volatile long syncs;
+    // Writer thread state
+    private long lastFlushNanos;
+    private long lastSyncNanos;
+
+    // Legacy headerless 20 byte records
+    public AsyncRecordWriter(File file) throws IOException {
+        this(file, WriterOptions.Defaults());
+    }
+
+    // Legacy headerless 20 byte records
+    public AsyncRecordWriter(File file, WriterOptions options) throws IOException {
+        this(file, options, new LegacyBlockFormat(options.blockSize), true);
+    }
+
+    // The file is truncated: formats with a header or an index need it to start at their header
+    public AsyncRecordWriter(File file, WriterOptions options, IBlockFormat format) throws IOException {
+        this(file, options, format, false);
+    }
+
+    /**
+     * @param append keep the existing content, only for headerless formats
+     *               whose records can follow any previous ones
+     */
+    public AsyncRecordWriter(File file, WriterOptions options, IBlockFormat format, boolean append) throws IOException {
+        this.options = options;
+        this.format = format;
+        this.ring = new RecordRing(options.ringCapacity);
+        this.channel = new FileOutputStream(file, append).getChannel();
+        this.thread = new Thread(this::WriterLoop, "record-writer-" + file.getName());
+        this.thread.start();
+    }
+
+    /**
+     * Queue a record, never blocks.
+     * @return false if the record was dropped because the writer fell behind
+     */
+    public boolean Append(int type, long timestamp, float x, float y, float z) {
+        offered++;
+        if (!running || !ring.Offer(type, timestamp, x, y, z)) {
+            dropped++;
+            return false;
+        }
+        int backlog = ring.Size();
+        if (backlog > maxBacklog) {
+            maxBacklog = backlog;
+        }
+        return true;
+    }
+
+    private void WriterLoop() {
+        long flushIntervalNanos = options.flushIntervalMillis * 1_000_000L;
+        lastFlushNanos = lastSyncNanos = System.nanoTime();
+        try {
+            format.WriteHeader(channel);
+            while (true) {
+                int drained = ring.Drain(format, format.Remaining());
+                if (format.Remaining() == 0) {
+                    WriteBlock();
+                } else if (format.Pending() > 0 && System.nanoTime() - lastFlushNanos >= flushIntervalNanos) {
+                    WriteBlock(); // Bound what a crash can lose when the sensor rate is low
+                }
+                if (drained == 0) {
+                    if (!running && ring.Size() == 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+            WriteBlock();
+            format.WriteFooter(channel);
+            if (options.fsyncPolicy != WriterOptions.FSYNC_NEVER) {
+                Sync();
+            }
+        } catch (IOException e) {
+            failure = e;
+            running = false;
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void WriteBlock() throws IOException {
+        if (format.Pending() == 0) {
+            return;
+        }
+        written += format.WriteBlock(channel);
+        lastFlushNanos = System.nanoTime();
+
+        if (options.fsyncPolicy == WriterOptions.FSYNC_EVERY_BLOCK
+                || (options.fsyncPolicy == WriterOptions.FSYNC_INTERVAL
+                && lastFlushNanos - lastSyncNanos >= options.fsyncIntervalMillis * 1_000_000L)) {
+            Sync();
+        }
+    }
+
+    private void Sync() throws IOException {
+        channel.force(false);
+        lastSyncNanos = System.nanoTime();
+        syncs++;
+    }
+
+    /**
+     * Stop accepting records, write everything still queued and close the file.
+     */
+    public void Close() throws IOException {
+        running = false;
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Records passed to Append
+    public long GetOfferedCount() {
+        return offered;
+    }
+
+    // Records lost because the ring was full or the writer had stopped
+    public long GetDroppedCount() {
+        return dropped;
+    }
+
+    // Records that reached the file
+    public long GetWrittenCount() {
+        return written;
+    }
+
+    // Highest number of queued records seen, close to the ring capacity means backpressure
+    public int GetMaxBacklog() {
+        return maxBacklog;
+    }
+
+    // Number of fsync calls
+    public long GetSyncCount() {
+        return syncs;
+    }
+
+    public int GetRingCapacity() {
+        return ring.GetCapacity();
+    }
+}
@@ -0,0 +1,37 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads values written by {@link BitWriter}.
+ */
+public class BitReader {
+    private ByteBuffer buffer;
+    private long pending; // Low `count` bits not consumed yet
+    private int count;
+
+    public BitReader Reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.pending = 0;
+        this.count = 0;
+        return this;
+    }
+
+    // Read an unsigned value of 1..64 bits
+    public long Read(int bits) {
+        if (bits > 32) {
+            long high = Read(bits - 32);
+            return (high << 32) | Read(32);
+        }
+        while (count < bits) {
+            pending = (pending << 8) | (buffer.get() & 0xFF);
+            count += 8;
+        }
+        count -= bits;
+        return (pending >>> count) & ((1L << bits) - 1);
+    }
+
+    public boolean ReadBit() {
+        return Read(1) != 0;
+    }
+}
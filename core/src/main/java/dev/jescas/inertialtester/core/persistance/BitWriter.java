@@ -0,0 +1,69 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.util.Arrays;
+
+/**
+ * Packs values of arbitrary bit width, most significant bit first, into a
+ * growable byte array.
+ */
+public class BitWriter {
+    private byte[] bytes = new byte[4096];
+    private int size;
+    private long pending; // Low `count` bits not yet written
+    private int count;
+
+    public BitWriter Reset() {
+        size = 0;
+        pending = 0;
+        count = 0;
+        return this;
+    }
+
+    // Write the lowest bits (1..64) of value
+    public void Write(long value, int bits) {
+        if (bits > 32) {
+            Write(value >>> 32, bits - 32);
+            Write(value, 32);
+            return;
+        }
+        pending = (pending << bits) | (value & ((1L << bits) - 1));
+        count += bits;
+        if (count >= 32) {
+            if (size + 4 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+            }
+            count -= 32;
+            int word = (int) (pending >>> count);
+            bytes[size] = (byte) (word >>> 24);
+            bytes[size + 1] = (byte) (word >>> 16);
+            bytes[size + 2] = (byte) (word >>> 8);
+            bytes[size + 3] = (byte) word;
+            size += 4;
+        }
+    }
+
+    public void WriteBit(boolean bit) {
+        Write(bit ? 1 : 0, 1);
+    }
+
+    // Pad the last byte with zeros
+    public void Flush() {
+        while (count > 0) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+            }
+            int shift = count - 8;
+            bytes[size++] = (byte) (shift >= 0 ? pending >>> shift : pending << -shift);
+            count = Math.max(0, shift);
+        }
+    }
+
+    public byte[] GetBytes() {
+        return bytes;
+    }
+
+    // Bytes written, valid after Flush()
+    public int Size() {
+        return size;
+    }
+}
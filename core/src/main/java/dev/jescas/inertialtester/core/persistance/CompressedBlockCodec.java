@@ -0,0 +1,239 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Self contained compressed encoding of one {@link SessionBlock}, so blocks
+ * can be decoded independently (and in parallel). Layout:
+ * <pre>
+ * int records, int payload bytes, payload bits
+ * </pre>
+ * Per record the payload holds the sensor slot (index in the header sensor
+ * table, or an escape followed by the raw 32 bit type), the timestamp as a
+ * delta-of-delta against the previous sample of the same sensor and the
+ * three values XOR-ed with the previous value of the same sensor axis
+ * (Gorilla float compression). Regular sensor rates and slowly changing
+ * signals compress to a fraction of the 24 byte raw record.
+ */
+public class CompressedBlockCodec {
+    public static final int BLOCK_HEADER_SIZE = 8;
+    // Worst case bits per record: slot + escaped type + 4 + 64 timestamp + 3 x (2 + 10 + 32) values
+    private static final int MAX_RECORD_BITS = 32 + 32 + 68 + 3 * 44;
+
+    private final int[] sensorTypes;
+    private final int slotBits;
+    private final BitWriter writer = new BitWriter();
+    private final BitReader reader = new BitReader();
+
+    // Per slot compression state, the extra slot is shared by unknown sensor types
+    private final long[] prevTimestamp;
+    private final long[] prevDelta;
+    private final int[] timestampCount;
+    private final int[] prevBits;
+    private final int[] prevLeading;
+    private final int[] prevTrailing;
+    private final boolean[] hasValue;
+
+    public CompressedBlockCodec(int[] sensorTypes) {
+        this.sensorTypes = sensorTypes.clone();
+        int slots = sensorTypes.length + 1;
+        this.slotBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(slots - 1));
+        prevTimestamp = new long[slots];
+        prevDelta = new long[slots];
+        timestampCount = new int[slots];
+        prevBits = new int[3 * slots];
+        prevLeading = new int[3 * slots];
+        prevTrailing = new int[3 * slots];
+        hasValue = new boolean[slots];
+    }
+
+    // Upper bound of the encoded size of a block
+    public static int MaxEncodedSize(int records) {
+        return BLOCK_HEADER_SIZE + (int) (((long) records * MAX_RECORD_BITS + 7) / 8);
+    }
+
+    private void ResetState() {
+        for (int i = 0; i < timestampCount.length; i++) {
+            timestampCount[i] = 0;
+            prevDelta[i] = 0;
+            hasValue[i] = false;
+        }
+    }
+
+    private int SlotOf(int type) {
+        for (int i = 0; i < sensorTypes.length; i++) {
+            if (sensorTypes[i] == type) {
+                return i;
+            }
+        }
+        return sensorTypes.length;
+    }
+
+    /**
+     * Encode block at the position of dst, which needs
+     * {@link #MaxEncodedSize(int)} bytes of room.
+     * @return encoded bytes
+     */
+    public int Encode(SessionBlock block, ByteBuffer dst) {
+        ResetState();
+        writer.Reset();
+        for (int i = 0; i < block.Size(); i++) {
+            int type = block.GetType(i);
+            int slot = SlotOf(type);
+            writer.Write(slot, slotBits);
+            if (slot == sensorTypes.length) {
+                writer.Write(type, 32);
+            }
+            EncodeTimestamp(slot, block.GetTimestamp(i));
+            for (int axis = 0; axis < 3; axis++) {
+                EncodeValue(3 * slot + axis, Float.floatToRawIntBits(block.GetValue(i, axis)), hasValue[slot]);
+            }
+            hasValue[slot] = true;
+        }
+        writer.Flush();
+        dst.putInt(block.Size());
+        dst.putInt(writer.Size());
+        dst.put(writer.GetBytes(), 0, writer.Size());
+        return BLOCK_HEADER_SIZE + writer.Size();
+    }
+
+    private void EncodeTimestamp(int slot, long timestamp) {
+        if (timestampCount[slot] == 0) {
+            writer.Write(timestamp, 64);
+        } else {
+            long delta = timestamp - prevTimestamp[slot];
+            long dod = delta - prevDelta[slot];
+            long zigzag = (dod << 1) ^ (dod >> 63);
+            if (zigzag == 0) {
+                writer.Write(0b0, 1);
+            } else if ((zigzag >>> 16) == 0) {
+                writer.Write(0b10, 2);
+                writer.Write(zigzag, 16);
+            } else if ((zigzag >>> 24) == 0) {
+                writer.Write(0b110, 3);
+                writer.Write(zigzag, 24);
+            } else if ((zigzag >>> 32) == 0) {
+                writer.Write(0b1110, 4);
+                writer.Write(zigzag, 32);
+            } else {
+                writer.Write(0b1111, 4);
+                writer.Write(zigzag, 64);
+            }
+            prevDelta[slot] = delta;
+        }
+        prevTimestamp[slot] = timestamp;
+        timestampCount[slot]++;
+    }
+
+    private void EncodeValue(int channel, int bits, boolean hasPrevious) {
+        if (!hasPrevious) {
+            writer.Write(bits, 32);
+            prevBits[channel] = bits;
+            prevLeading[channel] = -1;
+            return;
+        }
+        int xor = bits ^ prevBits[channel];
+        prevBits[channel] = bits;
+        if (xor == 0) {
+            writer.Write(0b0, 1);
+            return;
+        }
+        int leading = Integer.numberOfLeadingZeros(xor);
+        int trailing = Integer.numberOfTrailingZeros(xor);
+        if (prevLeading[channel] >= 0 && leading >= prevLeading[channel] && trailing >= prevTrailing[channel]) {
+            // Fits the previous meaningful bit window
+            int length = 32 - prevLeading[channel] - prevTrailing[channel];
+            writer.Write(0b10, 2);
+            writer.Write(xor >>> prevTrailing[channel], length);
+        } else {
+            int length = 32 - leading - trailing;
+            writer.Write(0b11, 2);
+            writer.Write(leading, 5);
+            writer.Write(length - 1, 5);
+            writer.Write(xor >>> trailing, length);
+            prevLeading[channel] = leading;
+            prevTrailing[channel] = trailing;
+        }
+    }
+
+    /**
+     * Decode the block at the position of src into dst (cleared first).
+     * Leaves src after the block.
+     */
+    public void Decode(ByteBuffer src, SessionBlock dst) throws IOException {
+        ResetState();
+        dst.Clear();
+        int records = src.getInt();
+        int bytes = src.getInt();
+        if (records < 0 || bytes < 0 || bytes > src.remaining()) {
+            throw new IOException("Corrupted compressed block");
+        }
+        int end = src.position() + bytes;
+        dst.EnsureCapacity(records);
+        reader.Reset(src);
+        for (int i = 0; i < records; i++) {
+            int slot = (int) reader.Read(slotBits);
+            int type = slot < sensorTypes.length ? sensorTypes[slot] : (int) reader.Read(32);
+            long timestamp = DecodeTimestamp(slot);
+            float x = Float.intBitsToFloat(DecodeValue(3 * slot, hasValue[slot]));
+            float y = Float.intBitsToFloat(DecodeValue(3 * slot + 1, hasValue[slot]));
+            float z = Float.intBitsToFloat(DecodeValue(3 * slot + 2, hasValue[slot]));
+            hasValue[slot] = true;
+            dst.Add(type, timestamp, x, y, z);
+        }
+        src.position(end);
+    }
+
+    private long DecodeTimestamp(int slot) {
+        long timestamp;
+        if (timestampCount[slot] == 0) {
+            timestamp = reader.Read(64);
+        } else {
+            long zigzag;
+            if (!reader.ReadBit()) {
+                zigzag = 0;
+            } else if (!reader.ReadBit()) {
+                zigzag = reader.Read(16);
+            } else if (!reader.ReadBit()) {
+                zigzag = reader.Read(24);
+            } else if (!reader.ReadBit()) {
+                zigzag = reader.Read(32);
+            } else {
+                zigzag = reader.Read(64);
+            }
+            long dod = (zigzag >>> 1) ^ -(zigzag & 1);
+            long delta = prevDelta[slot] + dod;
+            timestamp = prevTimestamp[slot] + delta;
+            prevDelta[slot] = delta;
+        }
+        prevTimestamp[slot] = timestamp;
+        timestampCount[slot]++;
+        return timestamp;
+    }
+
+    private int DecodeValue(int channel, boolean hasPrevious) {
+        if (!hasPrevious) {
+            prevBits[channel] = (int) reader.Read(32);
+            prevLeading[channel] = -1;
+            return prevBits[channel];
+        }
+        if (!reader.ReadBit()) {
+            return prevBits[channel];
+        }
+        int xor;
+        if (!reader.ReadBit()) {
+            int length = 32 - prevLeading[channel] - prevTrailing[channel];
+            xor = (int) reader.Read(length) << prevTrailing[channel];
+        } else {
+            int leading = (int) reader.Read(5);
+            int length = (int) reader.Read(5) + 1;
+            int trailing = 32 - leading - length;
+            xor = (int) reader.Read(length) << trailing;
+            prevLeading[channel] = leading;
+            prevTrailing[channel] = trailing;
+        }
+        prevBits[channel] ^= xor;
+        return prevBits[channel];
+    }
+}
@@ -0,0 +1,27 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * On-disk layout used by {@link AsyncRecordWriter}. The writer thread feeds
+ * records into the current block and asks the format to write it out when
+ * it is full or the flush interval expires. Called from the writer thread
+ * only.
+ */
+public interface IBlockFormat extends RecordRing.IRecordSink {
+    // Called once before the first block
+    void WriteHeader(FileChannel channel) throws IOException;
+
+    // Records that still fit in the current block
+    int Remaining();
+
+    // Records buffered in the current block
+    int Pending();
+
+    // Write the current block (if any) and start a new one, returns the records written
+    int WriteBlock(FileChannel channel) throws IOException;
+
+    // Called once after the last block
+    void WriteFooter(FileChannel channel) throws IOException;
+}
@@ -0,0 +1,17 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.Closeable;
+
+/**
+ * Time ordered stream of recorded sensor samples. Next() advances to the
+ * following record, the getters describe the current one.
+ */
+public interface ISensorRecordSource extends Closeable {
+    boolean Next();
+    // One of the SensorType constants
+    int GetSensorType();
+    // Sample time in nanoseconds
+    long GetTimestamp();
+    // Copy the three axis values into dst
+    void GetValues(float[] dst);
+}
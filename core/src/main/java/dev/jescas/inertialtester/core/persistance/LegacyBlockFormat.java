@@ -0,0 +1,61 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Headerless stream of 20 byte records [long timestamp, float x, float y,
+ * float z] in native byte order, as read by {@link RecordingReader}.
+ */
+public class LegacyBlockFormat implements IBlockFormat {
+    public static final int RECORD_SIZE = 20;  // 8 bytes for timestamp, 12 for 3 floats
+
+    private final ByteBuffer block;
+
+    public LegacyBlockFormat(int blockSize) {
+        if (blockSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("Block size must hold at least one record");
+        }
+        block = ByteBuffer.allocateDirect(blockSize - blockSize % RECORD_SIZE);
+        block.order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public void WriteHeader(FileChannel channel) {
+    }
+
+    @Override
+    public void Accept(int type, long timestamp, float x, float y, float z) {
+        block.putLong(timestamp);
+        block.putFloat(x);
+        block.putFloat(y);
+        block.putFloat(z);
+    }
+
+    @Override
+    public int Remaining() {
+        return block.remaining() / RECORD_SIZE;
+    }
+
+    @Override
+    public int Pending() {
+        return block.position() / RECORD_SIZE;
+    }
+
+    @Override
+    public int WriteBlock(FileChannel channel) throws IOException {
+        int records = Pending();
+        block.flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        block.clear();
+        return records;
+    }
+
+    @Override
+    public void WriteFooter(FileChannel channel) {
+    }
+}
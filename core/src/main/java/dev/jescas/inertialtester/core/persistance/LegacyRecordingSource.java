@@ -0,0 +1,97 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Merges the accel_data / gyro_data / mag_data files of one recording into
+ * a single time ordered stream. The three files are appended together, so
+ * equal timestamps are ordered by record index and then accelerometer,
+ * gyroscope, magnetometer: the order the presenter consumes them in.
+ */
+public class LegacyRecordingSource implements ISensorRecordSource {
+    public static final String ACCELEROMETER_PREFIX = "accel_data";
+    public static final String GYROSCOPE_PREFIX = "gyro_data";
+    public static final String MAGNETIC_FIELD_PREFIX = "mag_data";
+
+    // Ordered by tie-break priority
+    private final RecordingReader[] readers;
+    private final boolean[] pending;
+    private RecordingReader current;
+
+    public LegacyRecordingSource(File accFile, File gyroFile, File magFile) throws IOException {
+        readers = new RecordingReader[]{
+                new RecordingReader(accFile, SensorType.ACCELEROMETER),
+                new RecordingReader(gyroFile, SensorType.GYROSCOPE),
+                new RecordingReader(magFile, SensorType.MAGNETIC_FIELD)
+        };
+        pending = new boolean[readers.length];
+        for (int i = 0; i < readers.length; i++) {
+            pending[i] = readers[i].Next();
+        }
+    }
+
+    /**
+     * Open a recording from its accelerometer file, the gyroscope and
+     * magnetometer files are the siblings with the same suffix.
+     */
+    public static LegacyRecordingSource Open(File accFile) throws IOException {
+        String name = accFile.getName();
+        if (!name.startsWith(ACCELEROMETER_PREFIX)) {
+            throw new IOException("Not an accelerometer recording: " + accFile);
+        }
+        String suffix = name.substring(ACCELEROMETER_PREFIX.length());
+        File directory = accFile.getAbsoluteFile().getParentFile();
+        return new LegacyRecordingSource(accFile,
+                new File(directory, GYROSCOPE_PREFIX + suffix),
+                new File(directory, MAGNETIC_FIELD_PREFIX + suffix));
+    }
+
+    @Override
+    public boolean Next() {
+        // Consume the record returned by the previous call
+        if (current != null) {
+            for (int i = 0; i < readers.length; i++) {
+                if (readers[i] == current) {
+                    pending[i] = current.Next();
+                }
+            }
+        }
+        current = null;
+        for (int i = 0; i < readers.length; i++) {
+            if (pending[i] && (current == null || Before(readers[i], current))) {
+                current = readers[i];
+            }
+        }
+        return current != null;
+    }
+
+    private static boolean Before(RecordingReader a, RecordingReader b) {
+        if (a.GetTimestamp() != b.GetTimestamp()) {
+            return a.GetTimestamp() < b.GetTimestamp();
+        }
+        return a.GetPosition() < b.GetPosition();
+    }
+
+    @Override
+    public int GetSensorType() {
+        return current.GetSensorType();
+    }
+
+    @Override
+    public long GetTimestamp() {
+        return current.GetTimestamp();
+    }
+
+    @Override
+    public void GetValues(float[] dst) {
+        current.GetValues(dst);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (RecordingReader reader : readers) {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free single producer / single consumer ring of fixed width
+ * sensor records [int sensor type, long timestamp, float x, float y, float z]. Records are
+ * kept in primitive arrays so offering never allocates. The producer is the
+ * sensor thread, the consumer the writer thread.
+ */
+public class RecordRing {
+    // Bytes of primitive storage per record
+    public static final int SLOT_SIZE = 24;
+
+    private final int capacity;
+    private final int mask;
+    private final int[] types;
+    private final long[] timestamps;
+    private final float[] values;
+    private final AtomicLong head = new AtomicLong(); // Next slot to write, owned by the producer
+    private final AtomicLong tail = new AtomicLong(); // Next slot to read, owned by the consumer
+    private long cachedTail; // Producer side copy of tail, refreshed only when the ring looks full
+    private long cachedHead; // Consumer side copy of head, refreshed only when the ring looks empty
+
+    /**
+     * @param capacity number of records, rounded up to a power of two
+     */
+    public RecordRing(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid ring capacity: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = this.capacity - 1;
+        this.types = new int[this.capacity];
+        this.timestamps = new long[this.capacity];
+        this.values = new float[3 * this.capacity];
+    }
+
+    public int GetCapacity() {
+        return capacity;
+    }
+
+    // Number of records waiting to be consumed
+    public int Size() {
+        return (int) (head.get() - tail.get());
+    }
+
+    /**
+     * Producer side: enqueue a record.
+     * @return false if the ring is full and the record was not stored
+     */
+    public boolean Offer(int type, long timestamp, float x, float y, float z) {
+        long h = head.get();
+        if (h - cachedTail >= capacity) {
+            cachedTail = tail.get();
+            if (h - cachedTail >= capacity) {
+                return false;
+            }
+        }
+        int slot = (int) (h & mask);
+        types[slot] = type;
+        timestamps[slot] = timestamp;
+        values[3 * slot] = x;
+        values[3 * slot + 1] = y;
+        values[3 * slot + 2] = z;
+        head.lazySet(h + 1); // Publish the record
+        return true;
+    }
+
+    /**
+     * Consumer side: move up to max records into sink.
+     * @return number of records drained
+     */
+    public int Drain(IRecordSink sink, int max) {
+        long t = tail.get();
+        if (cachedHead - t <= 0) {
+            cachedHead = head.get();
+        }
+        int count = (int) Math.min(cachedHead - t, max);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((t + i) & mask);
+            sink.Accept(types[slot], timestamps[slot], values[3 * slot], values[3 * slot + 1], values[3 * slot + 2]);
+        }
+        tail.lazySet(t + count); // Release the slots to the producer
+        return count;
+    }
+
+    public interface IRecordSink {
+        void Accept(int type, long timestamp, float x, float y, float z);
+    }
+}
@@ -0,0 +1,97 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a single stream recorded by WriteFileStream: 20 byte records of
+ * [long timestamp (ms), float x, float y, float z] in native byte order.
+ * The file is memory mapped in windows so recordings larger than 2 GB work.
+ */
+public class RecordingReader implements ISensorRecordSource {
+    public static final int RECORD_SIZE = 20;
+    // Records per mapped window (~64 MB)
+    private static final long WINDOW_RECORDS = (64L * 1024 * 1024) / RECORD_SIZE;
+
+    private final int sensorType;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long records;
+    private MappedByteBuffer window;
+    private long windowStart;   // First record of the mapped window
+    private long windowEnd;     // One past the last record of the mapped window
+    private long position = -1; // Current record
+    private long timestamp;
+    private float x, y, z;
+
+    public RecordingReader(File path, int sensorType) throws IOException {
+        this.sensorType = sensorType;
+        this.file = new RandomAccessFile(path, "r");
+        this.channel = file.getChannel();
+        this.records = channel.size() / RECORD_SIZE;
+    }
+
+    public long GetRecordCount() {
+        return records;
+    }
+
+    // Index of the current record
+    public long GetPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean Next() {
+        if (position + 1 >= records) {
+            return false;
+        }
+        position++;
+        if (position >= windowEnd) {
+            MapWindow(position);
+        }
+        timestamp = window.getLong() * 1_000_000L; // Milliseconds to nanoseconds
+        x = window.getFloat();
+        y = window.getFloat();
+        z = window.getFloat();
+        return true;
+    }
+
+    private void MapWindow(long first) {
+        windowStart = first;
+        windowEnd = Math.min(records, first + WINDOW_RECORDS);
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart * RECORD_SIZE,
+                    (windowEnd - windowStart) * RECORD_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map recording", e);
+        }
+        window.order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public int GetSensorType() {
+        return sensorType;
+    }
+
+    @Override
+    public long GetTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void GetValues(float[] dst) {
+        dst[0] = x;
+        dst[1] = y;
+        dst[2] = z;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+}
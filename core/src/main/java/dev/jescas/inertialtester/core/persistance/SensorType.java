@@ -0,0 +1,14 @@
+package dev.jescas.inertialtester.core.persistance;
+
+/**
+ * Sensor identifiers used in recordings. Values match android.hardware.Sensor
+ * TYPE_* constants so an event type can be stored as is.
+ */
+public final class SensorType {
+    public static final int ACCELEROMETER = 1;
+    public static final int MAGNETIC_FIELD = 2;
+    public static final int GYROSCOPE = 4;
+
+    private SensorType() {
+    }
+}
@@ -0,0 +1,66 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.util.Arrays;
+
+/**
+ * Records of one session block in structure of arrays layout, used to
+ * encode and decode blocks without per record objects.
+ */
+public class SessionBlock {
+    private int size;
+    private int[] types;
+    private long[] timestamps;
+    private float[] values;
+
+    public SessionBlock(int capacity) {
+        types = new int[capacity];
+        timestamps = new long[capacity];
+        values = new float[3 * capacity];
+    }
+
+    public int Size() {
+        return size;
+    }
+
+    public int GetCapacity() {
+        return types.length;
+    }
+
+    public void Clear() {
+        size = 0;
+    }
+
+    // Make room for at least capacity records, keeps the content
+    public void EnsureCapacity(int capacity) {
+        if (capacity > types.length) {
+            types = Arrays.copyOf(types, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, 3 * capacity);
+        }
+    }
+
+    public void Add(int type, long timestamp, float x, float y, float z) {
+        if (size == types.length) {
+            EnsureCapacity(Math.max(16, 2 * size));
+        }
+        types[size] = type;
+        timestamps[size] = timestamp;
+        values[3 * size] = x;
+        values[3 * size + 1] = y;
+        values[3 * size + 2] = z;
+        size++;
+    }
+
+    public int GetType(int index) {
+        return types[index];
+    }
+
+    public long GetTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    // Value of one axis (0..2) of a record
+    public float GetValue(int index, int axis) {
+        return values[3 * index + axis];
+    }
+}
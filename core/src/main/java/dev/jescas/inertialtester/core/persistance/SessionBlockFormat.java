@@ -0,0 +1,168 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Writes a session file: {@link SessionHeader}, blocks of 24 byte typed
+ * records (or the same records encoded by {@link CompressedBlockCodec} when
+ * the header is flagged compressed) and, on close, a block index followed by a fixed size trailer:
+ * <pre>
+ * index   blockCount x (long offset, long first timestamp, long last timestamp,
+ *                       int records, int bytes)
+ * trailer long index offset, int block count, 'I' 'T' 'S' 'X'
+ * </pre>
+ * First/last timestamps are the min/max of the block so readers can seek
+ * to a time range without scanning. A file without trailer (crash) still
+ * holds valid records up to the last complete one.
+ */
+public class SessionBlockFormat implements IBlockFormat {
+    public static final byte[] INDEX_MAGIC = {'I', 'T', 'S', 'X'};
+    public static final int INDEX_ENTRY_SIZE = 32;
+    public static final int TRAILER_SIZE = 16;
+
+    private final SessionHeader header;
+    private final ByteBuffer block;
+    // Compressed mode only, records are buffered and encoded per block
+    private final SessionBlock pending;
+    private final CompressedBlockCodec codec;
+    private long position;   // File offset of the next block
+    private long blockFirst = Long.MAX_VALUE;
+    private long blockLast = Long.MIN_VALUE;
+
+    // Block index, grown on demand
+    private int blocks;
+    private long[] offsets = new long[64];
+    private long[] firstTimestamps = new long[64];
+    private long[] lastTimestamps = new long[64];
+    private int[] records = new int[64];
+    private int[] sizes = new int[64];
+
+    public SessionBlockFormat(SessionHeader header) {
+        if (header.blockSize < SessionHeader.RECORD_SIZE) {
+            throw new IllegalArgumentException("Block size must hold at least one record");
+        }
+        this.header = header;
+        int capacity = header.blockSize / SessionHeader.RECORD_SIZE;
+        if (header.IsCompressed()) {
+            this.pending = new SessionBlock(capacity);
+            this.codec = new CompressedBlockCodec(header.sensorTypes);
+            this.block = ByteBuffer.allocateDirect(CompressedBlockCodec.MaxEncodedSize(capacity));
+        } else {
+            this.pending = null;
+            this.codec = null;
+            this.block = ByteBuffer.allocateDirect(capacity * SessionHeader.RECORD_SIZE);
+        }
+        this.block.order(header.byteOrder);
+    }
+
+    @Override
+    public void WriteHeader(FileChannel channel) throws IOException {
+        WriteFully(channel, header.Encode());
+        position = header.GetLength();
+    }
+
+    @Override
+    public void Accept(int type, long timestamp, float x, float y, float z) {
+        if (pending != null) {
+            pending.Add(type, timestamp, x, y, z);
+        } else {
+            block.putLong(timestamp);
+            block.putInt(type);
+            block.putFloat(x);
+            block.putFloat(y);
+            block.putFloat(z);
+        }
+        if (timestamp < blockFirst) {
+            blockFirst = timestamp;
+        }
+        if (timestamp > blockLast) {
+            blockLast = timestamp;
+        }
+    }
+
+    @Override
+    public int Remaining() {
+        if (pending != null) {
+            return pending.GetCapacity() - pending.Size();
+        }
+        return block.remaining() / SessionHeader.RECORD_SIZE;
+    }
+
+    @Override
+    public int Pending() {
+        if (pending != null) {
+            return pending.Size();
+        }
+        return block.position() / SessionHeader.RECORD_SIZE;
+    }
+
+    // File offset of the next block, the bytes written so far
+    public long GetPosition() {
+        return position;
+    }
+
+    @Override
+    public int WriteBlock(FileChannel channel) throws IOException {
+        int count = Pending();
+        if (count == 0) {
+            return 0;
+        }
+        if (pending != null) {
+            codec.Encode(pending, block);
+            pending.Clear();
+        }
+        int bytes = block.position();
+        block.flip();
+        WriteFully(channel, block);
+        block.clear();
+        AddIndexEntry(position, blockFirst, blockLast, count, bytes);
+        position += bytes;
+        blockFirst = Long.MAX_VALUE;
+        blockLast = Long.MIN_VALUE;
+        return count;
+    }
+
+    private void AddIndexEntry(long offset, long first, long last, int count, int bytes) {
+        if (blocks == offsets.length) {
+            int capacity = 2 * blocks;
+            offsets = Arrays.copyOf(offsets, capacity);
+            firstTimestamps = Arrays.copyOf(firstTimestamps, capacity);
+            lastTimestamps = Arrays.copyOf(lastTimestamps, capacity);
+            records = Arrays.copyOf(records, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        offsets[blocks] = offset;
+        firstTimestamps[blocks] = first;
+        lastTimestamps[blocks] = last;
+        records[blocks] = count;
+        sizes[blocks] = bytes;
+        blocks++;
+    }
+
+    @Override
+    public void WriteFooter(FileChannel channel) throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(blocks * INDEX_ENTRY_SIZE + TRAILER_SIZE);
+        index.order(header.byteOrder);
+        for (int i = 0; i < blocks; i++) {
+            index.putLong(offsets[i]);
+            index.putLong(firstTimestamps[i]);
+            index.putLong(lastTimestamps[i]);
+            index.putInt(records[i]);
+            index.putInt(sizes[i]);
+        }
+        index.putLong(position);
+        index.putInt(blocks);
+        index.put(INDEX_MAGIC);
+        index.flip();
+        WriteFully(channel, index);
+    }
+
+    private static void WriteFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads a session file written by {@link SessionFileWriter}. Raw records are
+ * memory mapped in windows, compressed blocks are decoded one at a time.
+ * The block index at the end of the file allows seeking to a timestamp
+ * without scanning and decoding blocks in parallel with
+ * {@link #ReadBlock(int, SessionBlock)}. Files without index (the app died
+ * while recording) are read up to the last complete record, or block when
+ * compressed.
+ */
+public class SessionFileReader implements ISensorRecordSource {
+    // Records per mapped window (~64 MB)
+    private static final long WINDOW_RECORDS = (64L * 1024 * 1024) / SessionHeader.RECORD_SIZE;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final SessionHeader header;
+    private final long dataStart;
+    private final long records;
+    private final boolean compressed;
+
+    // Block index
+    private final int blocks;
+    private final long[] blockOffset;
+    private final int[] blockBytes;
+    private final long[] blockFirstRecord;
+    private final long[] blockLastTimestamp; // Running max so it can be binary searched
+
+    // Compressed mode, the decoded block holding the current record
+    private CompressedBlockCodec codec;
+    private SessionBlock decoded;
+    private long decodedFirst = -1;
+
+    private MappedByteBuffer window;
+    private long windowStart;   // First record of the mapped window
+    private long windowEnd;     // One past the last record of the mapped window
+    private long position = -1; // Current record
+    private long timestamp;
+    private int type;
+    private float x, y, z;
+
+    public SessionFileReader(File path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        channel = file.getChannel();
+        try {
+            long size = channel.size();
+            ByteBuffer fixed = Read(0, (int) Math.min(size, 64 * 1024));
+            header = SessionHeader.Decode(fixed);
+            if (header.recordSize != SessionHeader.RECORD_SIZE) {
+                throw new IOException("Unsupported record size " + header.recordSize);
+            }
+            dataStart = header.GetLength();
+            compressed = header.IsCompressed();
+
+            long dataEnd = size;
+            int indexBlocks = 0;
+            ByteBuffer trailer = size >= dataStart + SessionBlockFormat.TRAILER_SIZE
+                    ? Read(size - SessionBlockFormat.TRAILER_SIZE, SessionBlockFormat.TRAILER_SIZE) : null;
+            if (trailer != null && HasIndexMagic(trailer)) {
+                trailer.order(header.byteOrder);
+                dataEnd = trailer.getLong(0);
+                indexBlocks = trailer.getInt(8);
+            }
+
+            if (indexBlocks == 0 && compressed) {
+                // No index, walk the block framing up to the last complete block
+                long[] offsets = new long[64];
+                int[] counts = new int[64];
+                int found = 0;
+                long offset = dataStart;
+                while (offset + CompressedBlockCodec.BLOCK_HEADER_SIZE <= dataEnd) {
+                    ByteBuffer framing = Read(offset, CompressedBlockCodec.BLOCK_HEADER_SIZE);
+                    framing.order(header.byteOrder);
+                    int count = framing.getInt();
+                    long next = offset + CompressedBlockCodec.BLOCK_HEADER_SIZE + framing.getInt();
+                    if (count <= 0 || next > dataEnd) {
+                        break;
+                    }
+                    if (found == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, 2 * found);
+                        counts = Arrays.copyOf(counts, 2 * found);
+                    }
+                    offsets[found] = offset;
+                    counts[found] = count;
+                    found++;
+                    offset = next;
+                }
+                blocks = found;
+                blockOffset = new long[blocks];
+                blockBytes = new int[blocks];
+                blockFirstRecord = new long[blocks];
+                blockLastTimestamp = new long[blocks];
+                long total = 0;
+                for (int i = 0; i < blocks; i++) {
+                    blockOffset[i] = offsets[i];
+                    blockBytes[i] = (int) ((i + 1 < blocks ? offsets[i + 1] : offset) - offsets[i]);
+                    blockFirstRecord[i] = total;
+                    blockLastTimestamp[i] = Long.MAX_VALUE; // Unknown, Seek scans from the first block
+                    total += counts[i];
+                }
+                records = total;
+            } else {
+                blocks = indexBlocks;
+                blockOffset = new long[blocks];
+                blockBytes = new int[blocks];
+                blockFirstRecord = new long[blocks];
+                blockLastTimestamp = new long[blocks];
+                long total = 0;
+                if (blocks > 0) {
+                    ByteBuffer index = Read(dataEnd, blocks * SessionBlockFormat.INDEX_ENTRY_SIZE);
+                    index.order(header.byteOrder);
+                    long runningMax = Long.MIN_VALUE;
+                    for (int i = 0; i < blocks; i++) {
+                        blockOffset[i] = index.getLong();
+                        blockFirstRecord[i] = total;
+                        index.getLong(); // first timestamp
+                        runningMax = Math.max(runningMax, index.getLong());
+                        blockLastTimestamp[i] = runningMax;
+                        total += index.getInt();
+                        blockBytes[i] = index.getInt();
+                    }
+                }
+                records = compressed ? total : (dataEnd - dataStart) / SessionHeader.RECORD_SIZE;
+            }
+            if (compressed) {
+                codec = new CompressedBlockCodec(header.sensorTypes);
+                decoded = new SessionBlock(Math.max(1, header.blockSize / SessionHeader.RECORD_SIZE));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer Read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of session file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static boolean HasIndexMagic(ByteBuffer trailer) {
+        for (int i = 0; i < SessionBlockFormat.INDEX_MAGIC.length; i++) {
+            if (trailer.get(12 + i) != SessionBlockFormat.INDEX_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public SessionHeader GetHeader() {
+        return header;
+    }
+
+    public long GetRecordCount() {
+        return records;
+    }
+
+    // Number of blocks, 0 if the index of a raw session is missing
+    public int GetBlockCount() {
+        return blocks;
+    }
+
+    public int GetBlockRecordCount(int block) {
+        return (int) ((block + 1 < blocks ? blockFirstRecord[block + 1] : records) - blockFirstRecord[block]);
+    }
+
+    /**
+     * Read every record of a block into dst (cleared first). Uses positional
+     * reads and its own decoder state, so different threads can read
+     * different blocks at the same time.
+     */
+    public void ReadBlock(int block, SessionBlock dst) throws IOException {
+        ByteBuffer buffer = Read(blockOffset[block], blockBytes[block]);
+        buffer.order(header.byteOrder);
+        if (compressed) {
+            new CompressedBlockCodec(header.sensorTypes).Decode(buffer, dst);
+            return;
+        }
+        dst.Clear();
+        dst.EnsureCapacity(GetBlockRecordCount(block));
+        while (buffer.remaining() >= SessionHeader.RECORD_SIZE) {
+            long ts = buffer.getLong();
+            int sensor = buffer.getInt();
+            dst.Add(sensor, ts, buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+        }
+    }
+
+    // Block holding a record
+    private int BlockOf(long record) {
+        int lo = 0, hi = blocks - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (blockFirstRecord[mid] <= record) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // Index of the current record
+    public long GetPosition() {
+        return position;
+    }
+
+    /**
+     * Position the reader so the next call to Next() returns the first
+     * record at or after timestamp (nanoseconds) of the block holding it.
+     * Uses the block index, falls back to a scan when there is none.
+     * @return false if no record is at or after timestamp
+     */
+    public boolean Seek(long timestampNs) {
+        long first = 0;
+        if (blocks > 0) {
+            // First block whose running max reaches the timestamp
+            int lo = 0, hi = blocks;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (blockLastTimestamp[mid] < timestampNs) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo == blocks) {
+                position = records - 1;
+                return false;
+            }
+            first = blockFirstRecord[lo];
+        }
+        position = first - 1;
+        while (Next()) {
+            if (timestamp >= timestampNs) {
+                position--; // Return this record again on the next call
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean Next() {
+        if (position + 1 >= records) {
+            return false;
+        }
+        position++;
+        if (compressed) {
+            return NextCompressed();
+        }
+        if (window == null || position < windowStart || position >= windowEnd) {
+            MapWindow(position);
+        }
+        window.position((int) ((position - windowStart) * SessionHeader.RECORD_SIZE));
+        timestamp = window.getLong();
+        type = window.getInt();
+        x = window.getFloat();
+        y = window.getFloat();
+        z = window.getFloat();
+        return true;
+    }
+
+    private boolean NextCompressed() {
+        if (decodedFirst < 0 || position < decodedFirst || position >= decodedFirst + decoded.Size()) {
+            int block = BlockOf(position);
+            try {
+                ByteBuffer buffer = Read(blockOffset[block], blockBytes[block]);
+                buffer.order(header.byteOrder);
+                codec.Decode(buffer, decoded);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read session block " + block, e);
+            }
+            decodedFirst = blockFirstRecord[block];
+        }
+        int i = (int) (position - decodedFirst);
+        timestamp = decoded.GetTimestamp(i);
+        type = decoded.GetType(i);
+        x = decoded.GetValue(i, 0);
+        y = decoded.GetValue(i, 1);
+        z = decoded.GetValue(i, 2);
+        return true;
+    }
+
+    private void MapWindow(long first) {
+        windowStart = first;
+        windowEnd = Math.min(records, first + WINDOW_RECORDS);
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + windowStart * SessionHeader.RECORD_SIZE,
+                    (windowEnd - windowStart) * SessionHeader.RECORD_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map session file", e);
+        }
+        window.order(header.byteOrder);
+    }
+
+    @Override
+    public int GetSensorType() {
+        return type;
+    }
+
+    @Override
+    public long GetTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void GetValues(float[] dst) {
+        dst[0] = x;
+        dst[1] = y;
+        dst[2] = z;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+}
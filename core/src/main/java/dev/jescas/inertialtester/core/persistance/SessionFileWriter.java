@@ -0,0 +1,95 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Records all sensors of a session into one interleaved file (see
+ * {@link SessionHeader} and {@link SessionBlockFormat}). Appending only
+ * queues the record, the file is written by a background thread.
+ */
+public class SessionFileWriter {
+    public static final String PREFIX = "session_";
+    public static final String EXTENSION = ".imu";
+
+    private final AsyncRecordWriter writer;
+    private final File outputFile;
+    private final String filename;
+
+    public SessionFileWriter(File directory, int[] sensorTypes, int[] samplingPeriodsUs, String deviceInfo) throws IOException {
+        this(directory, sensorTypes, samplingPeriodsUs, deviceInfo, WriterOptions.Defaults());
+    }
+
+    public SessionFileWriter(File directory, int[] sensorTypes, int[] samplingPeriodsUs, String deviceInfo,
+                             WriterOptions options) throws IOException {
+        this(directory, sensorTypes, samplingPeriodsUs, deviceInfo, options, false);
+    }
+
+    /**
+     * @param compressed encode blocks with {@link CompressedBlockCodec}, about
+     *                   60% of the raw size for noisy IMU data, less for smooth signals
+     */
+    public SessionFileWriter(File directory, int[] sensorTypes, int[] samplingPeriodsUs, String deviceInfo,
+                             WriterOptions options, boolean compressed) throws IOException {
+        long now = System.currentTimeMillis();
+        outputFile = CreateFile(directory, PREFIX + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date(now)));
+        filename = outputFile.getName();
+        SessionHeader header = new SessionHeader(now, options.blockSize, sensorTypes, samplingPeriodsUs, deviceInfo,
+                compressed ? SessionHeader.FLAG_COMPRESSED : 0);
+        writer = new AsyncRecordWriter(outputFile, options, new SessionBlockFormat(header));
+    }
+
+    /**
+     * Create a new empty <name>.imu, <name>_1.imu, ... whichever does not
+     * exist yet, so two sessions started in the same second never share a file.
+     */
+    private static File CreateFile(File directory, String name) throws IOException {
+        File file = new File(directory, name + EXTENSION);
+        for (int suffix = 1; !file.createNewFile(); suffix++) {
+            if (suffix > 1000) {
+                throw new IOException("Cannot create a session file for " + new File(directory, name));
+            }
+            file = new File(directory, name + "_" + suffix + EXTENSION);
+        }
+        return file;
+    }
+
+    public String GetFilePath() {
+        return filename;
+    }
+
+    public File GetFile() {
+        return outputFile;
+    }
+
+    /**
+     * Queue one sensor sample, never blocks.
+     * @param type one of the SensorType constants
+     * @param timestamp event time in nanoseconds (SensorEvent.timestamp)
+     * @return false if the record was dropped
+     */
+    public boolean AppendData(int type, long timestamp, float[] values) {
+        return writer.Append(type, timestamp, values[0], values[1], values[2]);
+    }
+
+    public long GetDroppedCount() {
+        return writer.GetDroppedCount();
+    }
+
+    public long GetWrittenCount() {
+        return writer.GetWrittenCount();
+    }
+
+    public int GetMaxBacklog() {
+        return writer.GetMaxBacklog();
+    }
+
+    /**
+     * Write the remaining records and the block index, then close the file.
+     */
+    public void CloseStream() throws IOException {
+        writer.Close();
+    }
+}
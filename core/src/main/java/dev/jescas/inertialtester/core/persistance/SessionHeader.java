@@ -0,0 +1,153 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Self describing header of a session file. Layout, in the byte order given
+ * by byte 4:
+ * <pre>
+ *  0  'I' 'T' 'S' 'F'         magic
+ *  4  byte   byte order       1 little endian, 0 big endian
+ *  5  byte   version
+ *  6  short  flags            bit 0 compressed blocks
+ *  8  int    header length    bytes, records start right after
+ * 12  int    record size      bytes
+ * 16  int    block size       bytes
+ * 20  long   start time       wall clock milliseconds
+ * 28  int    sensor count     n
+ * 32  n x (int sensor type, int sampling period in microseconds)
+ *     short  device info length + UTF-8 bytes
+ * </pre>
+ * Records are [long timestamp (ns), int sensor type, float x, float y,
+ * float z], or, with {@link #FLAG_COMPRESSED}, blocks encoded by
+ * {@link CompressedBlockCodec}. The file ends with the block index (see
+ * {@link SessionBlockFormat}).
+ */
+public class SessionHeader {
+    public static final byte[] MAGIC = {'I', 'T', 'S', 'F'};
+    public static final int VERSION = 1;
+    public static final int RECORD_SIZE = 24;
+    public static final int FLAG_COMPRESSED = 1;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int FIXED_SIZE = 32;
+
+    public final ByteOrder byteOrder;
+    public final int version;
+    public final int flags;
+    public final int recordSize;
+    public final int blockSize;
+    public final long startTimeMillis;
+    public final int[] sensorTypes;
+    public final int[] samplingPeriodsUs;
+    public final String deviceInfo;
+    private final int length;
+
+    public SessionHeader(long startTimeMillis, int blockSize, int[] sensorTypes, int[] samplingPeriodsUs, String deviceInfo) {
+        this(startTimeMillis, blockSize, sensorTypes, samplingPeriodsUs, deviceInfo, 0);
+    }
+
+    public SessionHeader(long startTimeMillis, int blockSize, int[] sensorTypes, int[] samplingPeriodsUs, String deviceInfo, int flags) {
+        this(ByteOrder.nativeOrder(), VERSION, flags, RECORD_SIZE, blockSize, startTimeMillis, sensorTypes, samplingPeriodsUs, deviceInfo);
+    }
+
+    private SessionHeader(ByteOrder byteOrder, int version, int flags, int recordSize, int blockSize, long startTimeMillis,
+                          int[] sensorTypes, int[] samplingPeriodsUs, String deviceInfo) {
+        if (sensorTypes.length != samplingPeriodsUs.length) {
+            throw new IllegalArgumentException("One sampling period per sensor type expected");
+        }
+        this.byteOrder = byteOrder;
+        this.version = version;
+        this.flags = flags;
+        this.recordSize = recordSize;
+        this.blockSize = blockSize;
+        this.startTimeMillis = startTimeMillis;
+        this.sensorTypes = sensorTypes;
+        this.samplingPeriodsUs = samplingPeriodsUs;
+        this.deviceInfo = deviceInfo == null ? "" : deviceInfo;
+        this.length = FIXED_SIZE + 8 * sensorTypes.length + 2 + this.deviceInfo.getBytes(UTF8).length;
+    }
+
+    // Bytes taken by the header, the first record starts at this offset
+    public int GetLength() {
+        return length;
+    }
+
+    // Blocks hold CompressedBlockCodec data instead of raw records
+    public boolean IsCompressed() {
+        return (flags & FLAG_COMPRESSED) != 0;
+    }
+
+    // Sampling period of a sensor in microseconds, 0 if unknown
+    public int GetSamplingPeriodUs(int sensorType) {
+        for (int i = 0; i < sensorTypes.length; i++) {
+            if (sensorTypes[i] == sensorType) {
+                return samplingPeriodsUs[i];
+            }
+        }
+        return 0;
+    }
+
+    public ByteBuffer Encode() {
+        byte[] device = deviceInfo.getBytes(UTF8);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(MAGIC);
+        buffer.put((byte) (byteOrder == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+        buffer.order(byteOrder);
+        buffer.put((byte) version);
+        buffer.putShort((short) flags);
+        buffer.putInt(length);
+        buffer.putInt(recordSize);
+        buffer.putInt(blockSize);
+        buffer.putLong(startTimeMillis);
+        buffer.putInt(sensorTypes.length);
+        for (int i = 0; i < sensorTypes.length; i++) {
+            buffer.putInt(sensorTypes[i]);
+            buffer.putInt(samplingPeriodsUs[i]);
+        }
+        buffer.putShort((short) device.length);
+        buffer.put(device);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Parse a header at the current position of buffer, leaving the buffer
+     * in the session byte order.
+     */
+    public static SessionHeader Decode(ByteBuffer buffer) throws IOException {
+        for (byte b : MAGIC) {
+            if (buffer.get() != b) {
+                throw new IOException("Not a session file");
+            }
+        }
+        ByteOrder order = buffer.get() == 1 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        buffer.order(order);
+        int version = buffer.get();
+        if (version > VERSION) {
+            throw new IOException("Unsupported session version " + version);
+        }
+        int flags = buffer.getShort();
+        int length = buffer.getInt();
+        int recordSize = buffer.getInt();
+        int blockSize = buffer.getInt();
+        long startTimeMillis = buffer.getLong();
+        int sensors = buffer.getInt();
+        int[] types = new int[sensors];
+        int[] periods = new int[sensors];
+        for (int i = 0; i < sensors; i++) {
+            types[i] = buffer.getInt();
+            periods[i] = buffer.getInt();
+        }
+        byte[] device = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(device);
+        SessionHeader header = new SessionHeader(order, version, flags, recordSize, blockSize, startTimeMillis,
+                types, periods, new String(device, UTF8));
+        if (header.length != length) {
+            throw new IOException("Corrupted session header");
+        }
+        return header;
+    }
+}
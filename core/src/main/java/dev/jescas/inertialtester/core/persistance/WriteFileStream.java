@@ -0,0 +1,84 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * One headerless file per sensor with millisecond timestamps.
+ * @deprecated use {@link SessionFileWriter}, kept to produce and test the legacy format.
+ */
+@Deprecated
+public class WriteFileStream {
+    private AsyncRecordWriter writer;
+    private File outputFile;
+    String filename;
+
+    public WriteFileStream(File directory, String prefix) {
+        this(directory, prefix, WriterOptions.Defaults());
+    }
+
+    public WriteFileStream(File directory, String prefix, WriterOptions options) {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd_HHmmss");
+        String currentDateAndTime = sdf.format(new Date());
+         filename = prefix + currentDateAndTime + ".bin";
+        this.outputFile = new File(directory, filename);
+        try {
+            writer = new AsyncRecordWriter(outputFile, options);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public String GetFilePath(){
+        return filename;
+    }
+
+
+    /**
+     * Append sensor data to the file. Only queues the record, the file is
+     * written from a background thread so the sensor thread never blocks.
+     * @param values The accelerometer data to be written (3 float values).
+     * @return false if the record was dropped.
+     */
+    public boolean AppendData(float[] values) {
+        long timestamp = System.currentTimeMillis();
+        return writer != null && writer.Append(0, timestamp, values[0], values[1], values[2]);
+    }
+
+    /**
+     * Records lost because the background writer fell behind.
+     */
+    public long GetDroppedCount() {
+        return writer == null ? 0 : writer.GetDroppedCount();
+    }
+
+    /**
+     * Records already written to the file.
+     */
+    public long GetWrittenCount() {
+        return writer == null ? 0 : writer.GetWrittenCount();
+    }
+
+    /**
+     * Highest number of records waiting for the writer thread.
+     */
+    public int GetMaxBacklog() {
+        return writer == null ? 0 : writer.GetMaxBacklog();
+    }
+
+    /**
+     * Close the stream and write any remaining data to the file.
+     */
+    public void CloseStream() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.Close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dev.jescas.inertialtester.core.persistance;
+
+/**
+ * Memory and durability settings of {@link AsyncRecordWriter}.
+ * Memory per writer is about ringCapacity * 24 bytes + blockSize, independent
+ * of the session length. A crash loses at most the records of the block that
+ * was being filled (bounded by flushIntervalMillis) plus, without fsync, what
+ * the OS had not written back yet.
+ */
+public class WriterOptions {
+    // Never call fsync, rely on the OS page cache write back
+    public static final int FSYNC_NEVER = 0;
+    // fsync after every written block
+    public static final int FSYNC_EVERY_BLOCK = 1;
+    // fsync at most every fsyncIntervalMillis
+    public static final int FSYNC_INTERVAL = 2;
+
+    public final int ringCapacity;
+    public final int blockSize;
+    public final long flushIntervalMillis;
+    public final int fsyncPolicy;
+    public final long fsyncIntervalMillis;
+
+    /**
+     * @param ringCapacity        records queued between the sensor and writer threads
+     * @param blockSize           bytes per direct buffer handed to the file channel
+     * @param flushIntervalMillis a partially filled block is written after this long
+     * @param fsyncPolicy         one of the FSYNC_* constants
+     * @param fsyncIntervalMillis period of {@link #FSYNC_INTERVAL}
+     */
+    public WriterOptions(int ringCapacity, int blockSize, long flushIntervalMillis, int fsyncPolicy, long fsyncIntervalMillis) {
+        if (fsyncPolicy < FSYNC_NEVER || fsyncPolicy > FSYNC_INTERVAL) {
+            throw new IllegalArgumentException("Unknown fsync policy: " + fsyncPolicy);
+        }
+        if (flushIntervalMillis <= 0 || fsyncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Intervals must be positive");
+        }
+        this.ringCapacity = ringCapacity;
+        this.blockSize = blockSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    // 4096 records (96 KB) of ring, 64 KB blocks, flush every second, fsync every 5 s
+    public static WriterOptions Defaults() {
+        return new WriterOptions(4096, 64 * 1024, 1000, FSYNC_INTERVAL, 5000);
+    }
+
+    // Approximate heap + direct memory used by one writer
+    public long GetMemoryFootprint() {
+        return (long) ringCapacity * RecordRing.SLOT_SIZE + blockSize;
+    }
+}
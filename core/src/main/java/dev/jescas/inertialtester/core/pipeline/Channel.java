@@ -0,0 +1,72 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+/**
+ * Named slots of a {@link SampleFrame} / columns of a {@link FrameBlock}.
+ * Vectors take three consecutive channels (X, Y, Z), a quaternion four
+ * (W, X, Y, Z).
+ */
+public final class Channel {
+    // Inputs
+    public static final int ACC_X = 0;
+    public static final int ACC_Y = 1;
+    public static final int ACC_Z = 2;
+    public static final int GYRO_X = 3;
+    public static final int GYRO_Y = 4;
+    public static final int GYRO_Z = 5;
+    public static final int MAG_X = 6;
+    public static final int MAG_Y = 7;
+    public static final int MAG_Z = 8;
+    public static final int DT = 9;  // Seconds since the previous sample
+
+    // Orientation
+    public static final int Q_W = 10;
+    public static final int Q_X = 11;
+    public static final int Q_Y = 12;
+    public static final int Q_Z = 13;
+    public static final int ROLL = 14;   // Degrees
+    public static final int PITCH = 15;
+    public static final int YAW = 16;
+
+    // Acceleration
+    public static final int EARTH_ACC_X = 17;
+    public static final int EARTH_ACC_Y = 18;
+    public static final int EARTH_ACC_Z = 19;
+    public static final int ACC_NORM = 20;
+    public static final int DYNAMIC_ACC = 21;
+    public static final int FILTERED_ACC = 22;
+
+    // Navigation
+    public static final int STEPS = 23;
+    public static final int DISTANCE = 24;  // Horizontal distance from the start (m)
+    public static final int SPEED = 25;     // Horizontal speed (m/s)
+    public static final int STEP_MAX = 26;  // Acceleration extremes of the last step, NaN before
+    public static final int STEP_MIN = 27;
+    public static final int STEP_LENGTH = 28;  // Length of the last step (m)
+    public static final int PDR_X = 29;        // Dead reckoning position (m)
+    public static final int PDR_Y = 30;
+
+    public static final int COUNT = 31;
+
+    private static final String[] NAMES = {
+            "ACC_X", "ACC_Y", "ACC_Z", "GYRO_X", "GYRO_Y", "GYRO_Z", "MAG_X", "MAG_Y", "MAG_Z", "DT",
+            "Q_W", "Q_X", "Q_Y", "Q_Z", "ROLL", "PITCH", "YAW",
+            "EARTH_ACC_X", "EARTH_ACC_Y", "EARTH_ACC_Z", "ACC_NORM", "DYNAMIC_ACC", "FILTERED_ACC",
+            "STEPS", "DISTANCE", "SPEED", "STEP_MAX", "STEP_MIN", "STEP_LENGTH", "PDR_X", "PDR_Y"
+    };
+
+    private Channel() {
+    }
+
+    public static String Name(int channel) {
+        return NAMES[channel];
+    }
+
+    public static int ByName(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown channel " + name);
+    }
+}
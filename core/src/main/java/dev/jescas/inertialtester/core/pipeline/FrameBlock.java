@@ -0,0 +1,68 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import java.util.Arrays;
+
+/**
+ * Many samples for block mode, stored column per {@link Channel} so each
+ * stage runs over contiguous arrays. Either sized up front and filled by
+ * index, or grown with {@link #Append} while a session is read.
+ */
+public final class FrameBlock {
+    private final double[][] channels = new double[Channel.COUNT][];
+    private long[] timestamps;
+    private int capacity;
+    private int size; // Samples added with Append
+
+    public FrameBlock(int capacity) {
+        this.capacity = capacity;
+        for (int i = 0; i < Channel.COUNT; i++) {
+            channels[i] = new double[capacity];
+        }
+        timestamps = new long[capacity];
+    }
+
+    // Column of one channel, indexed by sample
+    public double[] Get(int channel) {
+        return channels[channel];
+    }
+
+    public long[] GetTimestamps() {
+        return timestamps;
+    }
+
+    public int GetCapacity() {
+        return capacity;
+    }
+
+    public int GetSize() {
+        return size;
+    }
+
+    // Copy sample i into a frame
+    public void Load(int i, SampleFrame dst) {
+        for (int c = 0; c < Channel.COUNT; c++) {
+            dst.values[c] = channels[c][i];
+        }
+        dst.timestamp = timestamps[i];
+    }
+
+    // Copy a frame into sample i
+    public void Store(SampleFrame src, int i) {
+        for (int c = 0; c < Channel.COUNT; c++) {
+            channels[c][i] = src.values[c];
+        }
+        timestamps[i] = src.timestamp;
+    }
+
+    // Copy a frame after the last appended sample, doubling the columns when full
+    public void Append(SampleFrame src) {
+        if (size == capacity) {
+            capacity = Math.max(16, 2 * capacity);
+            for (int c = 0; c < Channel.COUNT; c++) {
+                channels[c] = Arrays.copyOf(channels[c], capacity);
+            }
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+        Store(src, size++);
+    }
+}
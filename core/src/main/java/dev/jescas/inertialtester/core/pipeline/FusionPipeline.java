@@ -0,0 +1,131 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import org.ejml.data.FMatrix3;
+
+import dev.jescas.inertialtester.core.algorithms.IOrientationEstimator;
+import dev.jescas.inertialtester.core.algorithms.StrapdownNavigator;
+import dev.jescas.inertialtester.core.math.Quaternion;
+import dev.jescas.inertialtester.core.trajectory.PedestrianDeadReckoning;
+
+/**
+ * The sensor fusion chain run on every magnetometer tick, by default
+ * ({@link PipelineConfig#Default}): orientation estimator (Madgwick) ->
+ * rotate acceleration -> Kalman gravity removal -> Butterworth low pass ->
+ * step detection -> pedestrian dead reckoning, plus 3-axis strapdown
+ * navigation from the same orientation. Any other {@link StagePipeline} can be run instead.
+ * Shared by the app model and the offline replay so both produce the same
+ * numbers. Outputs of the last {@link #Process} call are kept in a frame.
+ */
+public class FusionPipeline {
+    private final StagePipeline stages;
+    private final SampleFrame frame = new SampleFrame();
+    // Null when the chain has no such stage
+    private final OrientationStage orientationStage;
+    private final StrapdownStage strapdownStage;
+    private final PdrStage pdrStage;
+
+    // Outputs of the last processed sample
+    private final Quaternion orientation = Quaternion.identity();
+    private final FMatrix3 angles = new FMatrix3();
+    private final FMatrix3 accRot = new FMatrix3();
+
+    public FusionPipeline() {
+        this(PipelineConfig.MADGWICK);
+    }
+
+    // Default chain with the given PipelineConfig estimator name
+    public FusionPipeline(String estimator) {
+        this(PipelineConfig.Parse(PipelineConfig.Default(estimator)));
+    }
+
+    public FusionPipeline(StagePipeline stages) {
+        this.stages = stages;
+        this.orientationStage = stages.Find(OrientationStage.class);
+        this.strapdownStage = stages.Find(StrapdownStage.class);
+        this.pdrStage = stages.Find(PdrStage.class);
+    }
+
+    /**
+     * Run the whole chain for one sample.
+     * @param dt seconds since the previous sample
+     * @param timestamp sample time in nanoseconds
+     */
+    public void Process(FMatrix3 acc, FMatrix3 mag, FMatrix3 gyro, double dt, long timestamp) {
+        frame.SetInputs(acc, mag, gyro, dt, timestamp);
+        stages.Process(frame);
+        double[] v = frame.values;
+        orientation.set((float) v[Channel.Q_W], (float) v[Channel.Q_X], (float) v[Channel.Q_Y], (float) v[Channel.Q_Z]);
+        angles.a1 = (float) v[Channel.ROLL];
+        angles.a2 = (float) v[Channel.PITCH];
+        angles.a3 = (float) v[Channel.YAW];
+        accRot.a1 = (float) v[Channel.EARTH_ACC_X];
+        accRot.a2 = (float) v[Channel.EARTH_ACC_Y];
+        accRot.a3 = (float) v[Channel.EARTH_ACC_Z];
+    }
+
+    public StagePipeline GetStages() {
+        return stages;
+    }
+
+    // Every channel of the last sample
+    public SampleFrame GetFrame() {
+        return frame;
+    }
+
+    public IOrientationEstimator GetOrientationEstimator() {
+        return orientationStage != null ? orientationStage.GetEstimator() : null;
+    }
+
+    // Orientation of the last sample
+    public Quaternion GetOrientation() {
+        return orientation;
+    }
+
+    // Roll, pitch and yaw (degrees) of the last sample
+    public FMatrix3 GetEulerAngles() {
+        return angles;
+    }
+
+    // Acceleration rotated to the earth frame
+    public FMatrix3 GetRotatedAcceleration() {
+        return accRot;
+    }
+
+    // Filtered dynamic acceleration of the last sample
+    public double GetAcceleration() {
+        return frame.values[Channel.FILTERED_ACC];
+    }
+
+    public int GetSteps() {
+        return (int) frame.values[Channel.STEPS];
+    }
+
+    // Horizontal distance from the start (m), from the strapdown navigator
+    public double GetPosition() {
+        return frame.values[Channel.DISTANCE];
+    }
+
+    // Horizontal speed (m/s), from the strapdown navigator
+    public double GetVelocity() {
+        return frame.values[Channel.SPEED];
+    }
+
+    // Dead reckoning position (m) after the last step
+    public double GetPdrX() {
+        return frame.values[Channel.PDR_X];
+    }
+
+    public double GetPdrY() {
+        return frame.values[Channel.PDR_Y];
+    }
+
+    // Every step position, length and heading, null without a pdr stage
+    public PedestrianDeadReckoning GetPdr() {
+        return pdrStage != null ? pdrStage.GetEngine() : null;
+    }
+
+    // 3-axis position, velocity and ZUPT state, null without a strapdown stage
+    public StrapdownNavigator GetNavigator() {
+        return strapdownStage != null ? strapdownStage.GetNavigator() : null;
+    }
+}
@@ -0,0 +1,12 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+/**
+ * One step of a {@link StagePipeline}: reads some channels and writes
+ * others. Both modes must produce the same values; block mode runs the
+ * stage over samples [off, off + len) of every column in one loop.
+ */
+public interface IStage {
+    void Process(SampleFrame frame);
+
+    void ProcessBlock(FrameBlock block, int off, int len);
+}
@@ -0,0 +1,42 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import dev.jescas.inertialtester.core.filters.IKalmanFilter;
+
+/**
+ * Gravity removal: in -> out, the dynamic acceleration estimated by a Kalman filter.
+ */
+public class KalmanStage implements IStage {
+    private final IKalmanFilter filter;
+    private final int in;
+    private final int out;
+
+    public KalmanStage(IKalmanFilter filter, int in, int out) {
+        this.filter = filter;
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public void Process(SampleFrame frame) {
+        frame.values[out] = Apply(frame.values[in]);
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        double[] src = block.Get(in);
+        double[] dst = block.Get(out);
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = Apply(src[i]);
+        }
+    }
+
+    private double Apply(double value) {
+        filter.Predict();
+        filter.Update(value);
+        return filter.GetDynamicAcceleration();
+    }
+
+    public IKalmanFilter GetFilter() {
+        return filter;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+/**
+ * Euclidean norm of the vector starting at channel in, written to out.
+ */
+public class NormStage implements IStage {
+    private final int in;
+    private final int out;
+
+    public NormStage(int in, int out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public void Process(SampleFrame frame) {
+        double[] v = frame.values;
+        double x = v[in], y = v[in + 1], z = v[in + 2];
+        v[out] = Math.sqrt(x * x + y * y + z * z);
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        double[] xs = block.Get(in), ys = block.Get(in + 1), zs = block.Get(in + 2);
+        double[] dst = block.Get(out);
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = Math.sqrt(xs[i] * xs[i] + ys[i] * ys[i] + zs[i] * zs[i]);
+        }
+    }
+}
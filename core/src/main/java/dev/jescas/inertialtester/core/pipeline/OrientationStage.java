@@ -0,0 +1,77 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import org.ejml.data.FMatrix3;
+
+import dev.jescas.inertialtester.core.algorithms.IOrientationEstimator;
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+/**
+ * ACC, MAG, GYRO, DT -> Q, ROLL/PITCH/YAW through any orientation estimator.
+ */
+public class OrientationStage implements IStage {
+    private final IOrientationEstimator estimator;
+    private final FMatrix3 acc = new FMatrix3();
+    private final FMatrix3 mag = new FMatrix3();
+    private final FMatrix3 gyro = new FMatrix3();
+    private final Quaternion orientation = Quaternion.identity();
+    private final FMatrix3 angles = new FMatrix3();
+
+    public OrientationStage(IOrientationEstimator estimator) {
+        this.estimator = estimator;
+    }
+
+    @Override
+    public void Process(SampleFrame frame) {
+        double[] v = frame.values;
+        Set(acc, v[Channel.ACC_X], v[Channel.ACC_Y], v[Channel.ACC_Z]);
+        Set(mag, v[Channel.MAG_X], v[Channel.MAG_Y], v[Channel.MAG_Z]);
+        Set(gyro, v[Channel.GYRO_X], v[Channel.GYRO_Y], v[Channel.GYRO_Z]);
+        Feed(v[Channel.DT]);
+        v[Channel.Q_W] = orientation.w();
+        v[Channel.Q_X] = orientation.x();
+        v[Channel.Q_Y] = orientation.y();
+        v[Channel.Q_Z] = orientation.z();
+        v[Channel.ROLL] = angles.a1;
+        v[Channel.PITCH] = angles.a2;
+        v[Channel.YAW] = angles.a3;
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        double[] ax = block.Get(Channel.ACC_X), ay = block.Get(Channel.ACC_Y), az = block.Get(Channel.ACC_Z);
+        double[] mx = block.Get(Channel.MAG_X), my = block.Get(Channel.MAG_Y), mz = block.Get(Channel.MAG_Z);
+        double[] gx = block.Get(Channel.GYRO_X), gy = block.Get(Channel.GYRO_Y), gz = block.Get(Channel.GYRO_Z);
+        double[] dt = block.Get(Channel.DT);
+        double[] qw = block.Get(Channel.Q_W), qx = block.Get(Channel.Q_X), qy = block.Get(Channel.Q_Y), qz = block.Get(Channel.Q_Z);
+        double[] roll = block.Get(Channel.ROLL), pitch = block.Get(Channel.PITCH), yaw = block.Get(Channel.YAW);
+        for (int i = off, end = off + len; i < end; i++) {
+            Set(acc, ax[i], ay[i], az[i]);
+            Set(mag, mx[i], my[i], mz[i]);
+            Set(gyro, gx[i], gy[i], gz[i]);
+            Feed(dt[i]);
+            qw[i] = orientation.w();
+            qx[i] = orientation.x();
+            qy[i] = orientation.y();
+            qz[i] = orientation.z();
+            roll[i] = angles.a1;
+            pitch[i] = angles.a2;
+            yaw[i] = angles.a3;
+        }
+    }
+
+    private void Feed(double dt) {
+        estimator.Feed(acc, mag, gyro, dt);
+        estimator.GetQuaternion(orientation);
+        orientation.getEulerAnglesInto(angles);
+    }
+
+    private static void Set(FMatrix3 dst, double x, double y, double z) {
+        dst.a1 = (float) x;
+        dst.a2 = (float) y;
+        dst.a3 = (float) z;
+    }
+
+    public IOrientationEstimator GetEstimator() {
+        return estimator;
+    }
+}
@@ -0,0 +1,33 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import dev.jescas.inertialtester.core.filters.IPassFilter;
+
+/**
+ * in -> out through a low or high pass filter.
+ */
+public class PassFilterStage implements IStage {
+    private final IPassFilter filter;
+    private final int in;
+    private final int out;
+
+    public PassFilterStage(IPassFilter filter, int in, int out) {
+        this.filter = filter;
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public void Process(SampleFrame frame) {
+        filter.Update(frame.values[in]);
+        frame.values[out] = filter.GetOutput();
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        filter.Process(block.Get(in), block.Get(out), off, len);
+    }
+
+    public IPassFilter GetFilter() {
+        return filter;
+    }
+}
@@ -0,0 +1,54 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import dev.jescas.inertialtester.core.trajectory.PedestrianDeadReckoning;
+
+/**
+ * STEPS, STEP_MAX, STEP_MIN, heading -> STEP_LENGTH, PDR_X, PDR_Y: one
+ * pedestrian dead reckoning step per increment of the step count, along
+ * the heading channel (degrees, YAW by default).
+ */
+public class PdrStage implements IStage {
+    private final PedestrianDeadReckoning pdr;
+    private final int heading;
+    private double steps = 0;
+    private double length = Double.NaN;
+
+    public PdrStage(PedestrianDeadReckoning pdr, int heading) {
+        this.pdr = pdr;
+        this.heading = heading;
+    }
+
+    @Override
+    public void Process(SampleFrame frame) {
+        double[] v = frame.values;
+        if (v[Channel.STEPS] > steps) {
+            steps = v[Channel.STEPS];
+            length = pdr.OnStep(v[Channel.STEP_MAX], v[Channel.STEP_MIN], Math.toRadians(v[heading]), frame.timestamp);
+        }
+        v[Channel.STEP_LENGTH] = length;
+        v[Channel.PDR_X] = pdr.GetX();
+        v[Channel.PDR_Y] = pdr.GetY();
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        double[] count = block.Get(Channel.STEPS);
+        double[] stepMax = block.Get(Channel.STEP_MAX), stepMin = block.Get(Channel.STEP_MIN);
+        double[] angle = block.Get(heading);
+        double[] stepLength = block.Get(Channel.STEP_LENGTH), x = block.Get(Channel.PDR_X), y = block.Get(Channel.PDR_Y);
+        long[] timestamps = block.GetTimestamps();
+        for (int i = off, end = off + len; i < end; i++) {
+            if (count[i] > steps) {
+                steps = count[i];
+                length = pdr.OnStep(stepMax[i], stepMin[i], Math.toRadians(angle[i]), timestamps[i]);
+            }
+            stepLength[i] = length;
+            x[i] = pdr.GetX();
+            y[i] = pdr.GetY();
+        }
+    }
+
+    public PedestrianDeadReckoning GetEngine() {
+        return pdr;
+    }
+}
@@ -0,0 +1,155 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.jescas.inertialtester.core.algorithms.AdaptiveStepDetector;
+import dev.jescas.inertialtester.core.algorithms.ErrorStateKalmanFilter;
+import dev.jescas.inertialtester.core.algorithms.FactoredQuaternionAlgorithm;
+import dev.jescas.inertialtester.core.algorithms.IOrientationEstimator;
+import dev.jescas.inertialtester.core.algorithms.IStepDetector;
+import dev.jescas.inertialtester.core.algorithms.MadgwickFilter;
+import dev.jescas.inertialtester.core.algorithms.StepDetection;
+import dev.jescas.inertialtester.core.algorithms.StrapdownNavigator;
+import dev.jescas.inertialtester.core.filters.ButterWorthFilter;
+import dev.jescas.inertialtester.core.filters.KalmantFilter;
+import dev.jescas.inertialtester.core.trajectory.PedestrianDeadReckoning;
+
+/**
+ * Builds a {@link StagePipeline} from text: one stage per line (or ';'),
+ * a stage type followed by key=value parameters. Channels are given by
+ * {@link Channel} name, vectors by their X channel.
+ * <pre>
+ * orientation estimator=madgwick|ekf|fqa
+ * rotate
+ * norm in=EARTH_ACC_X out=ACC_NORM
+ * kalman in=ACC_NORM out=DYNAMIC_ACC
+ * lowpass in=DYNAMIC_ACC out=FILTERED_ACC
+ * highpass in=ACC_NORM out=DYNAMIC_ACC
+ * steps in=FILTERED_ACC out=STEPS detector=peak threshold=0.5
+ * steps in=FILTERED_ACC out=STEPS detector=adaptive rate=50
+ * pdr heading=YAW k=0.5 length=0.8
+ * strapdown
+ * </pre>
+ */
+public final class PipelineConfig {
+    public static final String MADGWICK = "madgwick";
+    public static final String EKF = "ekf";
+    public static final String FQA = "fqa";
+    public static final String PEAK = "peak";          // Fixed threshold StepDetection
+    public static final String ADAPTIVE = "adaptive";  // AdaptiveStepDetector
+
+    // Butterworth coefficients (scipy.signal.butter) of the app chain
+    public static final double[] LOW_PASS_A = {1., -2.64858448, 2.35624385, -0.70305812};
+    public static final double[] LOW_PASS_B = {0.00057516, 0.00172547, 0.00172547, 0.00057516};
+    public static final double[] HIGH_PASS_A = {1., -1.64745998, 0.70089678};
+    public static final double[] HIGH_PASS_B = {0.83708919, -1.67417838, 0.83708919};
+
+    private PipelineConfig() {
+    }
+
+    // The app chain with the given orientation estimator
+    public static String Default(String estimator) {
+        return "orientation estimator=" + estimator + "\n"
+                + "rotate\n"
+                + "norm in=EARTH_ACC_X out=ACC_NORM\n"
+                + "kalman in=ACC_NORM out=DYNAMIC_ACC\n"
+                + "lowpass in=DYNAMIC_ACC out=FILTERED_ACC\n"
+                + "steps in=FILTERED_ACC out=STEPS threshold=0.5\n"
+                + "pdr heading=YAW\n"
+                + "strapdown\n";
+    }
+
+    public static StagePipeline Parse(String config) {
+        List<IStage> stages = new ArrayList<>();
+        for (String line : config.split("[;\n]")) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].isEmpty() || tokens[0].startsWith("#")) {
+                continue;
+            }
+            Map<String, String> params = new HashMap<>();
+            for (int i = 1; i < tokens.length; i++) {
+                int eq = tokens[i].indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value, got " + tokens[i] + " in: " + line);
+                }
+                params.put(tokens[i].substring(0, eq), tokens[i].substring(eq + 1));
+            }
+            stages.add(CreateStage(tokens[0], params));
+            if (!params.isEmpty()) {
+                throw new IllegalArgumentException("Unknown parameters " + params.keySet() + " in: " + line);
+            }
+        }
+        return new StagePipeline(stages.toArray(new IStage[0]));
+    }
+
+    public static IOrientationEstimator CreateEstimator(String name) {
+        switch (name) {
+            case MADGWICK:
+                return new MadgwickFilter();
+            case EKF:
+                return new ErrorStateKalmanFilter();
+            case FQA:
+                return new FactoredQuaternionAlgorithm();
+            default:
+                throw new IllegalArgumentException("Unknown orientation estimator " + name);
+        }
+    }
+
+    private static IStepDetector CreateStepDetector(Map<String, String> params) {
+        String detector = Take(params, "detector", PEAK);
+        switch (detector) {
+            case PEAK:
+                return new StepDetection(Double.parseDouble(Take(params, "threshold", "0.5")));
+            case ADAPTIVE:
+                return new AdaptiveStepDetector(Double.parseDouble(Take(params, "rate", "50")));
+            default:
+                throw new IllegalArgumentException("Unknown step detector " + detector);
+        }
+    }
+
+    // Known parameters are removed from params so leftovers can be reported
+    private static IStage CreateStage(String type, Map<String, String> params) {
+        switch (type) {
+            case "orientation":
+                return new OrientationStage(CreateEstimator(Take(params, "estimator", MADGWICK)));
+            case "rotate":
+                return new RotationStage();
+            case "norm":
+                return new NormStage(TakeChannel(params, "in", Channel.EARTH_ACC_X), TakeChannel(params, "out", Channel.ACC_NORM));
+            case "kalman":
+                return new KalmanStage(new KalmantFilter(),
+                        TakeChannel(params, "in", Channel.ACC_NORM), TakeChannel(params, "out", Channel.DYNAMIC_ACC));
+            case "lowpass":
+                return new PassFilterStage(new ButterWorthFilter(LOW_PASS_A, LOW_PASS_B),
+                        TakeChannel(params, "in", Channel.DYNAMIC_ACC), TakeChannel(params, "out", Channel.FILTERED_ACC));
+            case "highpass":
+                return new PassFilterStage(new ButterWorthFilter(HIGH_PASS_A, HIGH_PASS_B),
+                        TakeChannel(params, "in", Channel.ACC_NORM), TakeChannel(params, "out", Channel.DYNAMIC_ACC));
+            case "steps":
+                return new StepStage(CreateStepDetector(params),
+                        TakeChannel(params, "in", Channel.FILTERED_ACC), TakeChannel(params, "out", Channel.STEPS));
+            case "pdr":
+                return new PdrStage(new PedestrianDeadReckoning(
+                        Double.parseDouble(Take(params, "k", String.valueOf(PedestrianDeadReckoning.DEFAULT_K))),
+                        Double.parseDouble(Take(params, "length", String.valueOf(PedestrianDeadReckoning.DEFAULT_STEP_LENGTH)))),
+                        TakeChannel(params, "heading", Channel.YAW));
+            case "strapdown":
+                return new StrapdownStage(new StrapdownNavigator());
+            default:
+                throw new IllegalArgumentException("Unknown stage " + type);
+        }
+    }
+
+    private static String Take(Map<String, String> params, String key, String fallback) {
+        String value = params.remove(key);
+        return value != null ? value : fallback;
+    }
+
+    private static int TakeChannel(Map<String, String> params, String key, int fallback) {
+        String value = params.remove(key);
+        return value != null ? Channel.ByName(value) : fallback;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+/**
+ * ACC, Q -> EARTH_ACC: accelerometer rotated to the earth frame.
+ */
+public class RotationStage implements IStage {
+    @Override
+    public void Process(SampleFrame frame) {
+        double[] v = frame.values;
+        double w = v[Channel.Q_W], x = v[Channel.Q_X], y = v[Channel.Q_Y], z = v[Channel.Q_Z];
+        double ax = v[Channel.ACC_X], ay = v[Channel.ACC_Y], az = v[Channel.ACC_Z];
+        v[Channel.EARTH_ACC_X] = (1 - 2 * (y * y + z * z)) * ax + 2 * (x * y - w * z) * ay + 2 * (x * z + w * y) * az;
+        v[Channel.EARTH_ACC_Y] = 2 * (x * y + w * z) * ax + (1 - 2 * (x * x + z * z)) * ay + 2 * (y * z - w * x) * az;
+        v[Channel.EARTH_ACC_Z] = 2 * (x * z - w * y) * ax + 2 * (y * z + w * x) * ay + (1 - 2 * (x * x + y * y)) * az;
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        double[] qw = block.Get(Channel.Q_W), qx = block.Get(Channel.Q_X), qy = block.Get(Channel.Q_Y), qz = block.Get(Channel.Q_Z);
+        double[] accX = block.Get(Channel.ACC_X), accY = block.Get(Channel.ACC_Y), accZ = block.Get(Channel.ACC_Z);
+        double[] ex = block.Get(Channel.EARTH_ACC_X), ey = block.Get(Channel.EARTH_ACC_Y), ez = block.Get(Channel.EARTH_ACC_Z);
+        for (int i = off, end = off + len; i < end; i++) {
+            double w = qw[i], x = qx[i], y = qy[i], z = qz[i];
+            double ax = accX[i], ay = accY[i], az = accZ[i];
+            ex[i] = (1 - 2 * (y * y + z * z)) * ax + 2 * (x * y - w * z) * ay + 2 * (x * z + w * y) * az;
+            ey[i] = 2 * (x * y + w * z) * ax + (1 - 2 * (x * x + z * z)) * ay + 2 * (y * z - w * x) * az;
+            ez[i] = 2 * (x * z - w * y) * ax + 2 * (y * z + w * x) * ay + (1 - 2 * (x * x + y * y)) * az;
+        }
+    }
+}
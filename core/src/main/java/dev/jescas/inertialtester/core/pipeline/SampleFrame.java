@@ -0,0 +1,27 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import org.ejml.data.FMatrix3;
+
+/**
+ * One sample flowing through a {@link StagePipeline} in streaming mode:
+ * every {@link Channel} as a primitive double, plus the timestamp.
+ */
+public final class SampleFrame {
+    public final double[] values = new double[Channel.COUNT];
+    public long timestamp; // Nanoseconds
+
+    // Load the sensor inputs of one sample
+    public void SetInputs(FMatrix3 acc, FMatrix3 mag, FMatrix3 gyro, double dt, long timestamp) {
+        values[Channel.ACC_X] = acc.a1;
+        values[Channel.ACC_Y] = acc.a2;
+        values[Channel.ACC_Z] = acc.a3;
+        values[Channel.GYRO_X] = gyro.a1;
+        values[Channel.GYRO_Y] = gyro.a2;
+        values[Channel.GYRO_Z] = gyro.a3;
+        values[Channel.MAG_X] = mag.a1;
+        values[Channel.MAG_Y] = mag.a2;
+        values[Channel.MAG_Z] = mag.a3;
+        values[Channel.DT] = dt;
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,77 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import org.ejml.data.FMatrix3;
+
+import dev.jescas.inertialtester.core.persistance.SensorType;
+
+/**
+ * Entry point of sensor events into a {@link FusionPipeline}. Event values
+ * are copied into preallocated vectors, so the caller may reuse its array
+ * (SensorEvent.values is recycled by Android) and no event allocates.
+ * Accelerometer and gyroscope update the latest values, every magnetometer
+ * event triggers a pipeline step; gaps longer than a second are skipped.
+ */
+public class SensorIngest {
+    // Longest gap between two magnetometer events that is still integrated
+    private static final double MAX_DELTA_TIME = 1.0;
+
+    private final FusionPipeline pipeline;
+    private final FMatrix3 acc = new FMatrix3();
+    private final FMatrix3 gyro = new FMatrix3();
+    private final FMatrix3 mag = new FMatrix3();
+    private long currTimestamp = 0;
+    private long prevTimestamp = 0;
+
+    public SensorIngest(FusionPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Take one sensor event.
+     * @param type one of the SensorType constants (same values as Sensor.TYPE_*)
+     * @param timestamp event time in nanoseconds
+     * @param values at least three values, only read during the call
+     * @return true if the event ran a pipeline step, its outputs are in
+     *         {@link #GetPipeline()}
+     */
+    public boolean OnSample(int type, long timestamp, float[] values) {
+        switch (type) {
+            case SensorType.ACCELEROMETER:
+                Set(acc, values);
+                return false;
+
+            case SensorType.GYROSCOPE:
+                Set(gyro, values);
+                return false;
+
+            case SensorType.MAGNETIC_FIELD:
+                Set(mag, values);
+                currTimestamp = timestamp;
+                double deltaTime = (currTimestamp - prevTimestamp) * 1e-9;
+                prevTimestamp = currTimestamp;
+                if (deltaTime > MAX_DELTA_TIME) {
+                    return false;
+                }
+                pipeline.Process(acc, mag, gyro, deltaTime, currTimestamp);
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    public FusionPipeline GetPipeline() {
+        return pipeline;
+    }
+
+    // Timestamp of the last processed step in nanoseconds
+    public long GetTimestamp() {
+        return currTimestamp;
+    }
+
+    private static void Set(FMatrix3 dst, float[] values) {
+        dst.a1 = values[0];
+        dst.a2 = values[1];
+        dst.a3 = values[2];
+    }
+}
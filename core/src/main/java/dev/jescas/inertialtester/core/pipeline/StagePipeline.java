@@ -0,0 +1,47 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+/**
+ * Ordered chain of stages, usually assembled by {@link PipelineConfig}.
+ * Streaming mode pushes one frame through every stage. Block mode runs
+ * each stage over the whole block before the next one, so every stage
+ * loop stays monomorphic and the JIT can inline the algorithm into it.
+ */
+public class StagePipeline implements IStage {
+    private final IStage[] stages;
+
+    public StagePipeline(IStage... stages) {
+        this.stages = stages.clone();
+    }
+
+    @Override
+    public void Process(SampleFrame frame) {
+        for (IStage stage : stages) {
+            stage.Process(frame);
+        }
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        for (IStage stage : stages) {
+            stage.ProcessBlock(block, off, len);
+        }
+    }
+
+    public int Size() {
+        return stages.length;
+    }
+
+    public IStage Get(int index) {
+        return stages[index];
+    }
+
+    // First stage of the given type, or null
+    public <T extends IStage> T Find(Class<T> type) {
+        for (IStage stage : stages) {
+            if (type.isInstance(stage)) {
+                return type.cast(stage);
+            }
+        }
+        return null;
+    }
+}
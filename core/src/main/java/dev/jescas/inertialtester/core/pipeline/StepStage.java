@@ -0,0 +1,46 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import dev.jescas.inertialtester.core.algorithms.IStepDetector;
+
+/**
+ * in -> out: running step count of the filtered acceleration, from any step detector,
+ * plus the acceleration extremes of the last step in STEP_MAX, STEP_MIN.
+ */
+public class StepStage implements IStage {
+    private final IStepDetector detector;
+    private final int in;
+    private final int out;
+
+    public StepStage(IStepDetector detector, int in, int out) {
+        this.detector = detector;
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public void Process(SampleFrame frame) {
+        double[] v = frame.values;
+        detector.Feed(v[in], frame.timestamp);
+        v[out] = detector.GetStepCount();
+        v[Channel.STEP_MAX] = detector.GetStepMax();
+        v[Channel.STEP_MIN] = detector.GetStepMin();
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        double[] src = block.Get(in);
+        double[] dst = block.Get(out);
+        double[] stepMax = block.Get(Channel.STEP_MAX), stepMin = block.Get(Channel.STEP_MIN);
+        long[] timestamps = block.GetTimestamps();
+        for (int i = off, end = off + len; i < end; i++) {
+            detector.Feed(src[i], timestamps[i]);
+            dst[i] = detector.GetStepCount();
+            stepMax[i] = detector.GetStepMax();
+            stepMin[i] = detector.GetStepMin();
+        }
+    }
+
+    public IStepDetector GetDetector() {
+        return detector;
+    }
+}
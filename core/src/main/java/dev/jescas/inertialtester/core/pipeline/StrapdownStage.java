@@ -0,0 +1,58 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import org.ejml.data.FMatrix3;
+
+import dev.jescas.inertialtester.core.algorithms.StrapdownNavigator;
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+/**
+ * ACC, GYRO, DT, Q -> DISTANCE, SPEED through 3-axis strapdown navigation.
+ */
+public class StrapdownStage implements IStage {
+    private final StrapdownNavigator navigator;
+    private final Quaternion orientation = Quaternion.identity();
+    private final FMatrix3 acc = new FMatrix3();
+    private final FMatrix3 gyro = new FMatrix3();
+
+    public StrapdownStage(StrapdownNavigator navigator) {
+        this.navigator = navigator;
+    }
+
+    @Override
+    public void Process(SampleFrame frame) {
+        double[] v = frame.values;
+        orientation.set((float) v[Channel.Q_W], (float) v[Channel.Q_X], (float) v[Channel.Q_Y], (float) v[Channel.Q_Z]);
+        Set(acc, v[Channel.ACC_X], v[Channel.ACC_Y], v[Channel.ACC_Z]);
+        Set(gyro, v[Channel.GYRO_X], v[Channel.GYRO_Y], v[Channel.GYRO_Z]);
+        navigator.Feed(orientation, acc, gyro, v[Channel.DT]);
+        v[Channel.DISTANCE] = navigator.GetHorizontalDistance();
+        v[Channel.SPEED] = navigator.GetHorizontalSpeed();
+    }
+
+    @Override
+    public void ProcessBlock(FrameBlock block, int off, int len) {
+        double[] qw = block.Get(Channel.Q_W), qx = block.Get(Channel.Q_X), qy = block.Get(Channel.Q_Y), qz = block.Get(Channel.Q_Z);
+        double[] ax = block.Get(Channel.ACC_X), ay = block.Get(Channel.ACC_Y), az = block.Get(Channel.ACC_Z);
+        double[] gx = block.Get(Channel.GYRO_X), gy = block.Get(Channel.GYRO_Y), gz = block.Get(Channel.GYRO_Z);
+        double[] dt = block.Get(Channel.DT);
+        double[] distance = block.Get(Channel.DISTANCE), speed = block.Get(Channel.SPEED);
+        for (int i = off, end = off + len; i < end; i++) {
+            orientation.set((float) qw[i], (float) qx[i], (float) qy[i], (float) qz[i]);
+            Set(acc, ax[i], ay[i], az[i]);
+            Set(gyro, gx[i], gy[i], gz[i]);
+            navigator.Feed(orientation, acc, gyro, dt[i]);
+            distance[i] = navigator.GetHorizontalDistance();
+            speed[i] = navigator.GetHorizontalSpeed();
+        }
+    }
+
+    private static void Set(FMatrix3 dst, double x, double y, double z) {
+        dst.a1 = (float) x;
+        dst.a2 = (float) y;
+        dst.a3 = (float) z;
+    }
+
+    public StrapdownNavigator GetNavigator() {
+        return navigator;
+    }
+}
@@ -0,0 +1,218 @@
+package dev.jescas.inertialtester.core.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dev.jescas.inertialtester.core.persistance.ISensorRecordSource;
+import dev.jescas.inertialtester.core.pipeline.FusionPipeline;
+import dev.jescas.inertialtester.core.pipeline.PipelineConfig;
+
+/**
+ * Replays many sessions at once on a ForkJoinPool. Every session gets its
+ * own chain parsed from the config (estimator, filters and step detector
+ * are never shared) and streams its outputs to its own CSV, so sessions
+ * are fully independent and nothing is held in memory between them.
+ * Sessions are split recursively, the largest files first, and idle
+ * workers steal the remaining halves. Sessions that would write the same
+ * CSV (same name from different directories) get _1, _2, ... suffixes in
+ * the order given. A failing session is reported in its
+ * {@link SessionResult} without stopping the batch.
+ */
+public class BatchProcessor {
+    // Outcome of one session
+    public static final class SessionResult {
+        public final File session;
+        public final File output;
+        public long samples;
+        public long nanos;       // Time spent replaying it
+        public String error;     // Null on success
+
+        SessionResult(File session, File output) {
+            this.session = session;
+            this.output = output;
+        }
+    }
+
+    // Throughput of one run
+    public static final class Report {
+        public final List<SessionResult> sessions;
+        public final int parallelism;
+        public final long wallNanos;
+        public final long samples;
+        public final int failures;
+
+        Report(List<SessionResult> sessions, int parallelism, long wallNanos) {
+            this.sessions = sessions;
+            this.parallelism = parallelism;
+            this.wallNanos = wallNanos;
+            long total = 0;
+            int failed = 0;
+            for (SessionResult result : sessions) {
+                total += result.samples;
+                if (result.error != null) {
+                    failed++;
+                }
+            }
+            this.samples = total;
+            this.failures = failed;
+        }
+
+        public double SamplesPerSecond() {
+            return samples / (wallNanos * 1e-9);
+        }
+
+        public double SessionsPerSecond() {
+            return sessions.size() / (wallNanos * 1e-9);
+        }
+
+        public double SamplesPerSecondPerThread() {
+            return SamplesPerSecond() / parallelism;
+        }
+
+        // Throughput relative to another run of the same batch, e.g. on one thread
+        public double Speedup(Report baseline) {
+            return SamplesPerSecond() / baseline.SamplesPerSecond();
+        }
+
+        // Speedup per added thread, 1 for perfect scaling
+        public double Efficiency(Report baseline) {
+            return Speedup(baseline) * baseline.parallelism / parallelism;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d sessions (%d failed), %d samples in %.3f s on %d threads: "
+                            + "%.0f samples/s, %.1f sessions/s, %.0f samples/s per thread",
+                    sessions.size(), failures, samples, wallNanos * 1e-9, parallelism,
+                    SamplesPerSecond(), SessionsPerSecond(), SamplesPerSecondPerThread());
+        }
+    }
+
+    private final String config;
+    private final File outputDirectory;
+
+    // App chain, results next to every session
+    public BatchProcessor() {
+        this(PipelineConfig.Default(PipelineConfig.MADGWICK), null);
+    }
+
+    /**
+     * @param config          chain run on every session, see PipelineConfig
+     * @param outputDirectory where the CSVs go, null for next to each session
+     */
+    public BatchProcessor(String config, File outputDirectory) {
+        PipelineConfig.Parse(config); // Fail early on a bad config
+        this.config = config;
+        this.outputDirectory = outputDirectory;
+    }
+
+    // <name>.csv in the output directory or next to the session
+    public File OutputFor(File session) {
+        return OutputFor(session, 0);
+    }
+
+    // <name>_<suffix>.csv, suffix 0 for none
+    private File OutputFor(File session, int suffix) {
+        File directory = outputDirectory != null ? outputDirectory : session.getAbsoluteFile().getParentFile();
+        String name = session.getName().replaceFirst("\\.(bin|imu)$", "");
+        return new File(directory, (suffix == 0 ? name : name + "_" + suffix) + ".csv");
+    }
+
+    /**
+     * Replay every session with the given number of worker threads.
+     * @return results in the order of sessions, and the throughput
+     */
+    public Report Run(List<File> sessions, int parallelism) {
+        if (outputDirectory != null && !outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new UncheckedIOException(new IOException("Cannot create " + outputDirectory));
+        }
+        SessionResult[] results = new SessionResult[sessions.size()];
+        // Concurrent tasks must never write the same file
+        Set<File> outputs = new HashSet<>();
+        for (int i = 0; i < results.length; i++) {
+            File session = sessions.get(i);
+            File output = OutputFor(session, 0);
+            for (int suffix = 1; !outputs.add(output.getAbsoluteFile()); suffix++) {
+                output = OutputFor(session, suffix);
+            }
+            results[i] = new SessionResult(session, output);
+        }
+        // Largest first, so the last tasks left to steal are short ones
+        SessionResult[] order = results.clone();
+        Arrays.sort(order, (x, y) -> Long.compare(y.session.length(), x.session.length()));
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new ReplayTask(config, order, 0, order.length));
+        } finally {
+            pool.shutdown();
+        }
+        long wall = System.nanoTime() - start;
+        return new Report(Collections.unmodifiableList(Arrays.asList(results)), parallelism, wall);
+    }
+
+    /**
+     * Per-core scaling: the same batch once per thread count, compare the
+     * reports with {@link Report#Speedup} against the first. The first run
+     * also pays for JIT warm-up, negligible on a large batch only.
+     * @return one report per thread count, in order
+     */
+    public List<Report> Scaling(List<File> sessions, int[] threadCounts) {
+        List<Report> reports = new ArrayList<>();
+        for (int threads : threadCounts) {
+            reports.add(Run(sessions, threads));
+        }
+        return reports;
+    }
+
+    private static void Replay(String config, SessionResult result) {
+        long start = System.nanoTime();
+        try (ISensorRecordSource source = ReplayTool.Open(result.session);
+             ReplayCsvWriter writer = new ReplayCsvWriter(result.output)) {
+            FusionPipeline pipeline = new FusionPipeline(PipelineConfig.Parse(config));
+            result.samples = new SessionReplay(source, pipeline).Run(writer);
+        } catch (IOException | RuntimeException e) {
+            result.error = e.toString();
+        }
+        result.nanos = System.nanoTime() - start;
+    }
+
+    // Halves the range until a single session is left
+    private static final class ReplayTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String config;
+        private final SessionResult[] results;
+        private final int from;
+        private final int to;
+
+        ReplayTask(String config, SessionResult[] results, int from, int to) {
+            this.config = config;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    Replay(config, results[from]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ReplayTask(config, results, from, mid), new ReplayTask(config, results, mid, to));
+        }
+    }
+}
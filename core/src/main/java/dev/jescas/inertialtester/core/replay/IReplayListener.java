@@ -0,0 +1,8 @@
+package dev.jescas.inertialtester.core.replay;
+
+import dev.jescas.inertialtester.core.pipeline.FusionPipeline;
+
+public interface IReplayListener {
+    // Called after every processed sample, read the outputs from pipeline
+    void OnSample(long timestamp, FusionPipeline pipeline);
+}
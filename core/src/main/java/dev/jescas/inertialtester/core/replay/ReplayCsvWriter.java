@@ -0,0 +1,55 @@
+package dev.jescas.inertialtester.core.replay;
+
+import org.ejml.data.FMatrix3;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import dev.jescas.inertialtester.core.pipeline.FusionPipeline;
+
+/**
+ * Writes one CSV line per processed sample.
+ */
+public class ReplayCsvWriter implements IReplayListener, Closeable {
+    public static final String HEADER = "timestamp,roll,pitch,yaw,acceleration,steps,position,velocity,pdr_x,pdr_y";
+
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(128);
+
+    public ReplayCsvWriter(File output) throws IOException {
+        writer = new BufferedWriter(new FileWriter(output), 1 << 16);
+        writer.write(HEADER);
+        writer.newLine();
+    }
+
+    @Override
+    public void OnSample(long timestamp, FusionPipeline pipeline) {
+        FMatrix3 angles = pipeline.GetEulerAngles();
+        line.setLength(0);
+        line.append(timestamp).append(',')
+                .append(angles.a1).append(',')
+                .append(angles.a2).append(',')
+                .append(angles.a3).append(',')
+                .append(pipeline.GetAcceleration()).append(',')
+                .append(pipeline.GetSteps()).append(',')
+                .append(pipeline.GetPosition()).append(',')
+                .append(pipeline.GetVelocity()).append(',')
+                .append(pipeline.GetPdrX()).append(',')
+                .append(pipeline.GetPdrY());
+        try {
+            writer.append(line);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,127 @@
+package dev.jescas.inertialtester.core.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.jescas.inertialtester.core.persistance.ISensorRecordSource;
+import dev.jescas.inertialtester.core.persistance.LegacyRecordingSource;
+import dev.jescas.inertialtester.core.persistance.SessionFileReader;
+import dev.jescas.inertialtester.core.persistance.SessionFileWriter;
+import dev.jescas.inertialtester.core.pipeline.FusionPipeline;
+import dev.jescas.inertialtester.core.pipeline.PipelineConfig;
+
+/**
+ * Command line replay: for every session (*.imu) or legacy accel_data*.bin
+ * argument, re-runs the pipeline over the recording and writes the outputs
+ * next to it as CSV. With --zero-phase the sessions are analysed in
+ * parallel instead and lag-free acceleration traces are written to
+ * <name>.zerophase.csv (see {@link ZeroPhaseAnalysis}). With --batch the
+ * sessions are replayed in parallel on a ForkJoinPool (see
+ * {@link BatchProcessor}) and the throughput is reported; --threads sets the
+ * pool size, --out the CSV directory and --scaling repeats the batch on 1,
+ * 2, 4... threads up to the core count.
+ */
+public class ReplayTool {
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayTool [--zero-phase | --batch [--threads N] [--out DIR] [--scaling]] "
+                    + "session_<suffix>.imu|accel_data<suffix>.bin...");
+            System.exit(1);
+        }
+        if ("--zero-phase".equals(args[0])) {
+            ZeroPhase(args);
+            return;
+        }
+        if ("--batch".equals(args[0])) {
+            Batch(args);
+            return;
+        }
+        for (String arg : args) {
+            File input = new File(arg);
+            File output = new File(input.getAbsoluteFile().getParentFile(),
+                    input.getName().replaceFirst("\\.(bin|imu)$", "") + ".csv");
+            long start = System.nanoTime();
+            long samples;
+            try (ISensorRecordSource source = Open(input);
+                 ReplayCsvWriter writer = new ReplayCsvWriter(output)) {
+                samples = new SessionReplay(source, new FusionPipeline()).Run(writer);
+            }
+            double seconds = (System.nanoTime() - start) * 1e-9;
+            System.out.printf("%s: %d samples in %.3f s (%.0f samples/s) -> %s%n",
+                    input.getName(), samples, seconds, samples / seconds, output);
+        }
+    }
+
+    private static void ZeroPhase(String[] args) throws IOException {
+        List<File> sessions = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            sessions.add(new File(args[i]));
+        }
+        long start = System.nanoTime();
+        List<ZeroPhaseAnalysis.Result> results = new ZeroPhaseAnalysis().AnalyzeAll(sessions);
+        double seconds = (System.nanoTime() - start) * 1e-9;
+        long samples = 0;
+        for (ZeroPhaseAnalysis.Result result : results) {
+            File output = new File(result.session.getAbsoluteFile().getParentFile(),
+                    result.session.getName().replaceFirst("\\.(bin|imu)$", "") + ".zerophase.csv");
+            ZeroPhaseAnalysis.WriteCsv(result, output);
+            samples += result.size;
+            System.out.printf("%s: %d samples -> %s%n", result.session.getName(), result.size, output);
+        }
+        System.out.printf("%d sessions, %d samples analysed in %.3f s (%.0f samples/s)%n",
+                results.size(), samples, seconds, samples / seconds);
+    }
+
+    private static void Batch(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        File outputDirectory = null;
+        boolean scaling = false;
+        List<File> sessions = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if ("--threads".equals(args[i])) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--out".equals(args[i])) {
+                outputDirectory = new File(args[++i]);
+            } else if ("--scaling".equals(args[i])) {
+                scaling = true;
+            } else {
+                sessions.add(new File(args[i]));
+            }
+        }
+        BatchProcessor processor = new BatchProcessor(PipelineConfig.Default(PipelineConfig.MADGWICK), outputDirectory);
+        if (!scaling) {
+            BatchProcessor.Report report = processor.Run(sessions, threads);
+            for (BatchProcessor.SessionResult result : report.sessions) {
+                if (result.error != null) {
+                    System.err.printf("%s: %s%n", result.session, result.error);
+                }
+            }
+            System.out.println(report);
+            return;
+        }
+        List<Integer> counts = new ArrayList<>();
+        for (int n = 1; n < threads; n *= 2) {
+            counts.add(n);
+        }
+        counts.add(threads);
+        int[] threadCounts = new int[counts.size()];
+        for (int i = 0; i < threadCounts.length; i++) {
+            threadCounts[i] = counts.get(i);
+        }
+        List<BatchProcessor.Report> reports = processor.Scaling(sessions, threadCounts);
+        BatchProcessor.Report baseline = reports.get(0);
+        for (BatchProcessor.Report report : reports) {
+            System.out.printf("%s, %.2fx speedup, %.0f%% efficiency%n",
+                    report, report.Speedup(baseline), 100 * report.Efficiency(baseline));
+        }
+    }
+
+    public static ISensorRecordSource Open(File input) throws IOException {
+        if (input.getName().endsWith(SessionFileWriter.EXTENSION)) {
+            return new SessionFileReader(input);
+        }
+        return LegacyRecordingSource.Open(input);
+    }
+}
@@ -0,0 +1,44 @@
+package dev.jescas.inertialtester.core.replay;
+
+import dev.jescas.inertialtester.core.persistance.ISensorRecordSource;
+import dev.jescas.inertialtester.core.pipeline.FusionPipeline;
+import dev.jescas.inertialtester.core.pipeline.SensorIngest;
+
+/**
+ * Pushes a recorded session through a FusionPipeline as fast as possible,
+ * with the same synchronisation rules as MainPresenter (see
+ * {@link SensorIngest}).
+ */
+public class SessionReplay {
+    private final ISensorRecordSource source;
+    private final SensorIngest ingest;
+    private final float[] values = new float[3];
+
+    public SessionReplay(ISensorRecordSource source, FusionPipeline pipeline) {
+        this.source = source;
+        this.ingest = new SensorIngest(pipeline);
+    }
+
+    /**
+     * Replay the whole source.
+     * @param listener receives every processed sample, may be null
+     * @return number of processed samples
+     */
+    public long Run(IReplayListener listener) {
+        long processed = 0;
+        while (source.Next()) {
+            source.GetValues(values);
+            if (ingest.OnSample(source.GetSensorType(), source.GetTimestamp(), values)) {
+                processed++;
+                if (listener != null) {
+                    listener.OnSample(ingest.GetTimestamp(), ingest.GetPipeline());
+                }
+            }
+        }
+        return processed;
+    }
+
+    public FusionPipeline GetPipeline() {
+        return ingest.GetPipeline();
+    }
+}
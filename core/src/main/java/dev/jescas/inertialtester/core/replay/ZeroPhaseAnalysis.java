@@ -0,0 +1,152 @@
+package dev.jescas.inertialtester.core.replay;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import dev.jescas.inertialtester.core.filters.ZeroPhaseFilter;
+import dev.jescas.inertialtester.core.persistance.ISensorRecordSource;
+import dev.jescas.inertialtester.core.pipeline.Channel;
+import dev.jescas.inertialtester.core.pipeline.FrameBlock;
+import dev.jescas.inertialtester.core.pipeline.FusionPipeline;
+import dev.jescas.inertialtester.core.pipeline.PipelineConfig;
+import dev.jescas.inertialtester.core.pipeline.StagePipeline;
+
+/**
+ * Lag-free acceleration traces for offline analysis. A session is read into
+ * a {@link FrameBlock} with the same synchronisation as the app, the causal
+ * chain runs over it in block mode, then every selected channel has its
+ * session mean (gravity, sensor offsets) removed and is filtered forward and
+ * backward ({@link ZeroPhaseFilter}), so peaks stay where they happened.
+ * The channels of a session, and sessions, run in parallel on the common
+ * ForkJoinPool.
+ */
+public class ZeroPhaseAnalysis {
+    public static final int[] DEFAULT_CHANNELS = {
+            Channel.ACC_NORM, Channel.EARTH_ACC_X, Channel.EARTH_ACC_Y, Channel.EARTH_ACC_Z
+    };
+
+    // Traces of one session
+    public static final class Result {
+        public final File session;       // Null when read from a source
+        public final long[] timestamps;  // Nanoseconds, size long
+        public final int[] channels;
+        public final double[][] traces;  // [channel][sample]
+        public final int size;
+
+        Result(File session, long[] timestamps, int[] channels, double[][] traces, int size) {
+            this.session = session;
+            this.timestamps = timestamps;
+            this.channels = channels;
+            this.traces = traces;
+            this.size = size;
+        }
+    }
+
+    private final String config;
+    private final double[] a;
+    private final double[] b;
+    private final int[] channels;
+
+    // App chain, app low pass, acceleration channels
+    public ZeroPhaseAnalysis() {
+        this(PipelineConfig.Default(PipelineConfig.MADGWICK), PipelineConfig.LOW_PASS_A, PipelineConfig.LOW_PASS_B,
+                DEFAULT_CHANNELS);
+    }
+
+    /**
+     * @param config   causal chain producing the channels, see PipelineConfig
+     * @param a        filter denominator (scipy a)
+     * @param b        filter numerator (scipy b)
+     * @param channels Channel constants to trace
+     */
+    public ZeroPhaseAnalysis(String config, double[] a, double[] b, int[] channels) {
+        PipelineConfig.Parse(config); // Fail early on a bad config
+        this.config = config;
+        this.a = a.clone();
+        this.b = b.clone();
+        this.channels = channels.clone();
+    }
+
+    // Read a whole session and run the causal chain over it in block mode
+    public FrameBlock Load(ISensorRecordSource source) {
+        FrameBlock block = new FrameBlock(1 << 12);
+        // No stages: the frames only carry the synchronised inputs
+        new SessionReplay(source, new FusionPipeline(new StagePipeline()))
+                .Run((timestamp, pipeline) -> block.Append(pipeline.GetFrame()));
+        PipelineConfig.Parse(config).ProcessBlock(block, 0, block.GetSize());
+        return block;
+    }
+
+    // Zero-phase traces of the first block.GetSize() samples, one task per channel
+    public double[][] Filter(FrameBlock block) {
+        int n = block.GetSize();
+        double[][] traces = new double[channels.length][n];
+        IntStream.range(0, channels.length).parallel().forEach(c -> {
+            double[] src = block.Get(channels[c]);
+            double[] dst = traces[c];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += src[i];
+            }
+            double mean = n > 0 ? sum / n : 0;
+            for (int i = 0; i < n; i++) {
+                dst[i] = src[i] - mean;
+            }
+            new ZeroPhaseFilter(a, b).Filter(dst, dst, 0, n);
+        });
+        return traces;
+    }
+
+    public Result Analyze(ISensorRecordSource source) {
+        return Analyze(null, source);
+    }
+
+    // Every session in parallel, results in the same order
+    public List<Result> AnalyzeAll(List<File> sessions) throws IOException {
+        try {
+            return sessions.parallelStream().map(session -> {
+                try (ISensorRecordSource source = ReplayTool.Open(session)) {
+                    return Analyze(session, source);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Result Analyze(File session, ISensorRecordSource source) {
+        FrameBlock block = Load(source);
+        return new Result(session, block.GetTimestamps(), channels, Filter(block), block.GetSize());
+    }
+
+    // timestamp, then one column per channel
+    public static void WriteCsv(Result result, File output) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(output), 1 << 16)) {
+            line.append("timestamp");
+            for (int channel : result.channels) {
+                line.append(',').append(Channel.Name(channel).toLowerCase(Locale.ROOT));
+            }
+            writer.append(line);
+            writer.newLine();
+            for (int i = 0; i < result.size; i++) {
+                line.setLength(0);
+                line.append(result.timestamps[i]);
+                for (double[] trace : result.traces) {
+                    line.append(',').append(trace[i]);
+                }
+                writer.append(line);
+                writer.newLine();
+            }
+        }
+    }
+}
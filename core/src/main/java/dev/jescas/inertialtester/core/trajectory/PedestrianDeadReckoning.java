@@ -0,0 +1,130 @@
+package dev.jescas.inertialtester.core.trajectory;
+
+import java.util.Arrays;
+
+/**
+ * Pedestrian dead reckoning: every detected step moves the position by
+ * its length along the current heading. The length follows the Weinberg
+ * model, L = K * (max - min)^(1/4) from the extremes of the acceleration
+ * over the step, clamped to a plausible range; a step without extremes
+ * takes the fallback length. The track (position, length, heading and
+ * time of every step) is kept in growable primitive arrays, O(1) amortized
+ * per step.
+ */
+public class PedestrianDeadReckoning {
+    public static final double DEFAULT_K = 0.5;
+    public static final double DEFAULT_STEP_LENGTH = 0.8;  // m, when the step has no extremes
+    private static final double MIN_STEP_LENGTH = 0.2;
+    private static final double MAX_STEP_LENGTH = 1.6;
+
+    private final double k;
+    private final double fallbackLength;
+
+    private double x, y;
+    private double distance;
+    private int size;
+    private double[] xs = new double[256];
+    private double[] ys = new double[256];
+    private double[] lengths = new double[256];
+    private double[] headings = new double[256];
+    private long[] timestamps = new long[256];
+
+    public PedestrianDeadReckoning() {
+        this(DEFAULT_K, DEFAULT_STEP_LENGTH);
+    }
+
+    /**
+     * @param k              Weinberg constant, calibrated per person (about 0.4 to 0.55 for m/s^2)
+     * @param fallbackLength step length (m) when the acceleration extremes are unknown
+     */
+    public PedestrianDeadReckoning(double k, double fallbackLength) {
+        if (!(k > 0) || !(fallbackLength > 0)) {
+            throw new IllegalArgumentException("Weinberg constant and step length must be positive");
+        }
+        this.k = k;
+        this.fallbackLength = fallbackLength;
+    }
+
+    // Weinberg step length (m) from the acceleration extremes of the step (m/s^2)
+    public double StepLength(double stepMax, double stepMin) {
+        double range = stepMax - stepMin;
+        if (!(range > 0)) {
+            return fallbackLength; // NaN or flat
+        }
+        return Math.min(MAX_STEP_LENGTH, Math.max(MIN_STEP_LENGTH, k * Math.sqrt(Math.sqrt(range))));
+    }
+
+    /**
+     * One step: x += L cos(heading), y += L sin(heading).
+     * @param heading radians
+     * @return length of the step (m)
+     */
+    public double OnStep(double stepMax, double stepMin, double heading, long timestamp) {
+        double length = StepLength(stepMax, stepMin);
+        x += length * Math.cos(heading);
+        y += length * Math.sin(heading);
+        distance += length;
+        if (size == xs.length) {
+            int capacity = 2 * size;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            headings = Arrays.copyOf(headings, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        lengths[size] = length;
+        headings[size] = heading;
+        timestamps[size] = timestamp;
+        size++;
+        return length;
+    }
+
+    // Back to the origin, track emptied
+    public void Clear() {
+        x = y = distance = 0;
+        size = 0;
+    }
+
+    // Number of steps in the track
+    public int Size() {
+        return size;
+    }
+
+    // Position after step i (m)
+    public double GetX(int i) {
+        return xs[i];
+    }
+
+    public double GetY(int i) {
+        return ys[i];
+    }
+
+    public double GetLength(int i) {
+        return lengths[i];
+    }
+
+    // Radians
+    public double GetHeading(int i) {
+        return headings[i];
+    }
+
+    public long GetTimestamp(int i) {
+        return timestamps[i];
+    }
+
+    // Current position (m)
+    public double GetX() {
+        return x;
+    }
+
+    public double GetY() {
+        return y;
+    }
+
+    // Walked distance, sum of the step lengths (m)
+    public double GetDistance() {
+        return distance;
+    }
+}
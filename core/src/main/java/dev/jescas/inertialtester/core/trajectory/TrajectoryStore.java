@@ -0,0 +1,271 @@
+package dev.jescas.inertialtester.core.trajectory;
+
+import java.util.Arrays;
+
+/**
+ * Dead reckoning path: every position in growable primitive arrays
+ * (O(1) amortized append) plus an occupancy grid per level of detail, cell
+ * size doubling from level to level. Rendering asks {@link #Query} for the
+ * occupied cells of a viewport at the finest level that fits a point
+ * budget; a level is either probed cell by cell over the viewport or its
+ * occupied cells are scanned, whichever is bounded by the budget, so
+ * drawing cost does not grow with the length of the walk. Query output is sorted by X, as chart libraries
+ * expect, without ever sorting the path itself.
+ */
+public class TrajectoryStore {
+    public static final int LEVELS = 16;
+    // A query scans at most SCAN_FACTOR x maxPoints cells of a level
+    private static final int SCAN_FACTOR = 8;
+
+    private final double baseCellSize;
+    private int size;
+    private double[] xs = new double[1024];
+    private double[] ys = new double[1024];
+    private double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+    private final CellSet[] levels = new CellSet[LEVELS];
+    private long[] queryKeys = new long[256];
+
+    /**
+     * @param baseCellSize cell size of the finest level, in the units of the
+     *                     positions (e.g. 0.05 m)
+     */
+    public TrajectoryStore(double baseCellSize) {
+        if (!(baseCellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.baseCellSize = baseCellSize;
+        for (int i = 0; i < LEVELS; i++) {
+            levels[i] = new CellSet();
+        }
+    }
+
+    public void Append(double x, double y) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, 2 * size);
+            ys = Arrays.copyOf(ys, 2 * size);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+        for (int level = 0; level < LEVELS; level++) {
+            double cell = GetCellSize(level);
+            levels[level].Add(Key((int) Math.floor(x / cell), (int) Math.floor(y / cell)));
+        }
+    }
+
+    public void Clear() {
+        size = 0;
+        minX = minY = Double.POSITIVE_INFINITY;
+        maxX = maxY = Double.NEGATIVE_INFINITY;
+        for (CellSet level : levels) {
+            level.Clear();
+        }
+    }
+
+    public int Size() {
+        return size;
+    }
+
+    public double GetX(int i) {
+        return xs[i];
+    }
+
+    public double GetY(int i) {
+        return ys[i];
+    }
+
+    // Bounding box of every position, infinite while empty
+    public double GetMinX() {
+        return minX;
+    }
+
+    public double GetMaxX() {
+        return maxX;
+    }
+
+    public double GetMinY() {
+        return minY;
+    }
+
+    public double GetMaxY() {
+        return maxY;
+    }
+
+    public double GetCellSize(int level) {
+        return baseCellSize * (1L << level);
+    }
+
+    /**
+     * Downsampled path inside a viewport: the centers of the occupied cells
+     * of the finest level with at most maxPoints cells in the viewport.
+     * @param dstX receives X of the points, sorted ascending; length >= maxPoints
+     * @param dstY receives Y of the points
+     * @return number of points written
+     */
+    public int Query(double left, double right, double bottom, double top, int maxPoints, float[] dstX, float[] dstY) {
+        if (size == 0 || maxPoints <= 0) {
+            return 0;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            double cell = GetCellSize(level);
+            double viewportCells = (Math.floor(right / cell) - Math.floor(left / cell) + 1)
+                    * (Math.floor(top / cell) - Math.floor(bottom / cell) + 1);
+            // Bound the work: probe the viewport cells or scan the occupied ones, whichever is smaller
+            int count;
+            if (viewportCells <= SCAN_FACTOR * maxPoints) {
+                count = Probe(levels[level], cell, left, right, bottom, top, maxPoints);
+            } else if (levels[level].Size() <= SCAN_FACTOR * maxPoints || level + 1 == LEVELS) {
+                count = Collect(levels[level], cell, left, right, bottom, top, maxPoints);
+            } else {
+                continue;
+            }
+            if (count < 0 && level + 1 < LEVELS) {
+                continue; // Too many occupied cells, go coarser
+            }
+            count = Math.min(Math.abs(count), maxPoints);
+            Arrays.sort(queryKeys, 0, count);
+            for (int i = 0; i < count; i++) {
+                dstX[i] = (float) ((CellX(queryKeys[i]) + 0.5) * cell);
+                dstY[i] = (float) ((CellY(queryKeys[i]) + 0.5) * cell);
+            }
+            return count;
+        }
+        return 0;
+    }
+
+    // Viewport cells that are occupied into queryKeys, negative count if over budget
+    private int Probe(CellSet cells, double cell, double left, double right, double bottom, double top, int maxPoints) {
+        int minCx = (int) Math.floor(left / cell), maxCx = (int) Math.floor(right / cell);
+        int minCy = (int) Math.floor(bottom / cell), maxCy = (int) Math.floor(top / cell);
+        if (queryKeys.length < maxPoints) {
+            queryKeys = new long[maxPoints];
+        }
+        int count = 0;
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                long key = Key(cx, cy);
+                if (cells.Contains(key)) {
+                    if (count == maxPoints) {
+                        return -count;
+                    }
+                    queryKeys[count++] = key;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Occupied cells inside the viewport into queryKeys, negative count if over budget
+    private int Collect(CellSet cells, double cell, double left, double right, double bottom, double top, int maxPoints) {
+        long minCx = (long) Math.floor(left / cell), maxCx = (long) Math.floor(right / cell);
+        long minCy = (long) Math.floor(bottom / cell), maxCy = (long) Math.floor(top / cell);
+        if (queryKeys.length < maxPoints) {
+            queryKeys = new long[maxPoints];
+        }
+        int count = 0;
+        for (int i = 0; i < cells.Size(); i++) {
+            long key = cells.Get(i);
+            int cx = CellX(key), cy = CellY(key);
+            if (cx < minCx || cx > maxCx || cy < minCy || cy > maxCy) {
+                continue;
+            }
+            if (count == maxPoints) {
+                return -count;
+            }
+            queryKeys[count++] = key;
+        }
+        return count;
+    }
+
+    // Sorting keys sorts by cell column first
+    private static long Key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private static int CellX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int CellY(long key) {
+        return (int) key;
+    }
+
+    // Open addressing set of cell keys, insertion ordered for iteration
+    private static class CellSet {
+        private static final long EMPTY = Long.MIN_VALUE;
+        private long[] table = NewTable(64);
+        private long[] keys = new long[32];
+        private int size;
+
+        private static long[] NewTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+
+        boolean Contains(long key) {
+            int mask = table.length - 1;
+            for (int slot = Hash(key) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (table[slot] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void Add(long key) {
+            int mask = table.length - 1;
+            int slot = Hash(key) & mask;
+            while (table[slot] != EMPTY) {
+                if (table[slot] == key) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = key;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, 2 * size);
+            }
+            keys[size++] = key;
+            if (2 * size > table.length) {
+                Rehash();
+            }
+        }
+
+        private void Rehash() {
+            table = NewTable(2 * table.length);
+            int mask = table.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = Hash(keys[i]) & mask;
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = keys[i];
+            }
+        }
+
+        private static int Hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        int Size() {
+            return size;
+        }
+
+        long Get(int i) {
+            return keys[i];
+        }
+
+        void Clear() {
+            Arrays.fill(table, EMPTY);
+            size = 0;
+        }
+    }
+}
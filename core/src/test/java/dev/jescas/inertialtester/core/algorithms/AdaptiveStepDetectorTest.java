@@ -0,0 +1,72 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveStepDetectorTest {
+    private static final double RATE = 50;
+    private static final int SECONDS = 60;
+
+    /**
+     * Dynamic acceleration of a gait: one bump per step, a weaker component
+     * at the stride frequency (left/right asymmetry) and sensor noise.
+     */
+    private static int Count(IStepDetector detector, double stepFrequency, double amplitude, long seed) {
+        return Count(detector, RATE, stepFrequency, amplitude, seed);
+    }
+
+    private static int Count(IStepDetector detector, double rate, double stepFrequency, double amplitude, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < SECONDS * rate; i++) {
+            double t = i / rate;
+            double raw = amplitude * Math.sin(2 * Math.PI * stepFrequency * t)
+                    + 0.2 * amplitude * Math.sin(Math.PI * stepFrequency * t)
+                    + 0.05 * random.nextGaussian();
+            detector.Feed(raw, (long) (t * 1e9));
+        }
+        return detector.GetStepCount();
+    }
+
+    @Test
+    public void countsWalkingAndReportsCadence() {
+        AdaptiveStepDetector detector = new AdaptiveStepDetector(RATE);
+        int steps = Count(detector, 1.8, 1.5, 1);
+        assertEquals(1.8 * SECONDS, steps, 3);
+        assertEquals(108, detector.GetCadence(), 6);
+        assertTrue(detector.GetStepMax() > detector.GetStepMin());
+    }
+
+    @Test
+    public void countsSlowWalkersBelowTheFixedThreshold() {
+        assertEquals(0, Count(new StepDetection(0.5), 0.9, 0.35, 2));
+        AdaptiveStepDetector detector = new AdaptiveStepDetector(RATE);
+        assertEquals(0.9 * SECONDS, Count(detector, 0.9, 0.35, 2), 3);
+        assertEquals(54, detector.GetCadence(), 4);
+    }
+
+    @Test
+    public void countsRunners() {
+        AdaptiveStepDetector detector = new AdaptiveStepDetector(RATE);
+        assertEquals(3.0 * SECONDS, Count(detector, 3.0, 5.0, 3), 4);
+        assertEquals(180, detector.GetCadence(), 10);
+    }
+
+    @Test
+    public void countsAtHighInputRates() {
+        // The cadence runs decimated: same lags, same answer at 1 kHz
+        AdaptiveStepDetector detector = new AdaptiveStepDetector(1000);
+        assertEquals(1.8 * SECONDS, Count(detector, 1000, 1.8, 1.5, 5), 3);
+        assertEquals(108, detector.GetCadence(), 6);
+    }
+
+    @Test
+    public void standingStillCountsNothing() {
+        AdaptiveStepDetector detector = new AdaptiveStepDetector(RATE);
+        assertEquals(0, Count(detector, 1.0, 0.0, 4));
+        assertTrue(Double.isNaN(detector.GetCadence()));
+    }
+}
@@ -0,0 +1,89 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.ejml.data.FMatrix3;
+import org.junit.Test;
+
+import java.util.Random;
+
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ErrorStateKalmanFilterTest {
+    private static final double DT = 0.01; // 100 Hz
+
+    private static void Set(FMatrix3 dst, double x, double y, double z) {
+        dst.a1 = (float) x;
+        dst.a2 = (float) y;
+        dst.a3 = (float) z;
+    }
+
+    // Angle (rad) between two orientations
+    private static double Angle(Quaternion a, Quaternion b) {
+        double dot = Math.abs(a.w() * b.w() + a.x() * b.x() + a.y() * b.y() + a.z() * b.z());
+        return 2 * Math.acos(Math.min(1.0, dot));
+    }
+
+    @Test
+    public void staticAttitudeAndGyroBiasConverge() {
+        // Rolled 20, pitched -10 and yawed 60 degrees
+        Quaternion truth = Quaternion.identity();
+        Quaternion.multInto(new Quaternion((float) Math.cos(Math.toRadians(30)), 0f, 0f, (float) Math.sin(Math.toRadians(30))),
+                new Quaternion((float) Math.cos(Math.toRadians(-5)), 0f, (float) Math.sin(Math.toRadians(-5)), 0f), truth);
+        Quaternion.multInto(truth,
+                new Quaternion((float) Math.cos(Math.toRadians(10)), (float) Math.sin(Math.toRadians(10)), 0f, 0f), truth);
+        // Earth vectors seen from the body: v_body = q^-1 * v_earth * q
+        Quaternion inverse = truth.conjugate();
+        FMatrix3 gravity = new FMatrix3();
+        FMatrix3 field = new FMatrix3();
+        Set(gravity, 0, 0, ErrorStateKalmanFilter.GRAVITY);
+        Set(field, 20, 0, -40);
+        FMatrix3 accBody = inverse.rotateVectorInto(gravity, new FMatrix3());
+        FMatrix3 magBody = inverse.rotateVectorInto(field, new FMatrix3());
+
+        ErrorStateKalmanFilter filter = new ErrorStateKalmanFilter();
+        FMatrix3 acc = new FMatrix3();
+        FMatrix3 mag = new FMatrix3();
+        FMatrix3 gyro = new FMatrix3();
+        Random random = new Random(7);
+        for (int i = 0; i < 6000; i++) {
+            Set(acc, accBody.a1 + 0.05 * random.nextGaussian(), accBody.a2 + 0.05 * random.nextGaussian(),
+                    accBody.a3 + 0.05 * random.nextGaussian());
+            Set(mag, magBody.a1 + 0.5 * random.nextGaussian(), magBody.a2 + 0.5 * random.nextGaussian(),
+                    magBody.a3 + 0.5 * random.nextGaussian());
+            // Standing still with a constant gyroscope bias
+            Set(gyro, 0.02 + 0.005 * random.nextGaussian(), -0.01 + 0.005 * random.nextGaussian(),
+                    0.03 + 0.005 * random.nextGaussian());
+            filter.Feed(acc, mag, gyro, DT);
+        }
+        assertTrue(filter.IsInitialized());
+        assertTrue(Angle(truth, filter.GetQuaternion(Quaternion.identity())) < Math.toRadians(1));
+        FMatrix3 bias = filter.GetBias(new FMatrix3());
+        assertEquals(0.02, bias.a1, 0.003);
+        assertEquals(-0.01, bias.a2, 0.003);
+        assertEquals(0.03, bias.a3, 0.003);
+    }
+
+    @Test
+    public void tracksRotationWithTheGyroscope() {
+        // Level, turning about the vertical at 90 deg/s: the field turns the other way in the body
+        ErrorStateKalmanFilter filter = new ErrorStateKalmanFilter();
+        FMatrix3 acc = new FMatrix3();
+        FMatrix3 mag = new FMatrix3();
+        FMatrix3 gyro = new FMatrix3();
+        double rate = Math.PI / 2;
+        int samples = 100;
+        for (int i = 0; i <= samples; i++) {
+            double yaw = rate * i * DT;
+            Set(acc, 0, 0, ErrorStateKalmanFilter.GRAVITY);
+            Set(mag, 20 * Math.cos(yaw), -20 * Math.sin(yaw), -40);
+            Set(gyro, 0, 0, rate);
+            filter.Feed(acc, mag, gyro, DT);
+        }
+        FMatrix3 angles = filter.GetEulerAngles(new FMatrix3());
+        assertEquals(0.0, angles.a1, 0.5);
+        assertEquals(0.0, angles.a2, 0.5);
+        assertEquals(90.0, angles.a3, 1.0);
+    }
+}
@@ -0,0 +1,70 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.ejml.data.FMatrix3;
+import org.junit.Test;
+
+import java.util.Random;
+
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+import static org.junit.Assert.assertEquals;
+
+public class MadgwickFilterBankTest {
+    private static final int LANES = 13;
+    private static final int SAMPLES = 2000;
+
+    @Test
+    public void everyLane_matchesScalarFilter() {
+        MadgwickFilterBank bank = new MadgwickFilterBank(LANES);
+        MadgwickFilter[] filters = new MadgwickFilter[LANES];
+        for (int lane = 0; lane < LANES; lane++) {
+            filters[lane] = new MadgwickFilter();
+        }
+        Random random = new Random(5);
+        FMatrix3 acc = new FMatrix3(), mag = new FMatrix3(), gyro = new FMatrix3();
+        for (int i = 0; i < SAMPLES; i++) {
+            for (int lane = 0; lane < LANES; lane++) {
+                // Each lane walks with its own phase, rate and noise
+                double t = i * 0.01 + lane;
+                acc.setTo((float) (0.3 * Math.sin(t) + 0.05 * random.nextGaussian()),
+                        (float) (0.2 * Math.cos(t) + 0.05 * random.nextGaussian()),
+                        (float) (9.81 + 1.5 * Math.sin(4 * Math.PI * t)));
+                gyro.setTo((float) (0.01 * random.nextGaussian()), (float) (0.01 * random.nextGaussian()),
+                        (float) (0.05 * lane * Math.cos(0.1 * t)));
+                mag.setTo((float) (20 * Math.cos(0.1 * t)), (float) (-20 * Math.sin(0.1 * t)), -40f);
+                double dt = 0.01 + 0.0001 * lane;
+                filters[lane].Feed(acc, mag, gyro, dt);
+                bank.Load(lane, acc, mag, gyro, dt);
+            }
+            bank.Update();
+        }
+        Quaternion expected = Quaternion.identity(), actual = Quaternion.identity();
+        FMatrix3 expectedAngles = new FMatrix3(), actualAngles = new FMatrix3();
+        for (int lane = 0; lane < LANES; lane++) {
+            filters[lane].GetQuaternion(expected);
+            bank.GetQuaternion(lane, actual);
+            // Same filter, float lanes: only the rounding differs
+            assertEquals(expected.w(), actual.w(), 1e-5);
+            assertEquals(expected.x(), actual.x(), 1e-5);
+            assertEquals(expected.y(), actual.y(), 1e-5);
+            assertEquals(expected.z(), actual.z(), 1e-5);
+            filters[lane].GetEulerAngles(expectedAngles);
+            bank.GetEulerAngles(lane, actualAngles);
+            assertEquals(expectedAngles.a3, actualAngles.a3, 1e-3);
+        }
+    }
+
+    @Test
+    public void reset_restoresIdentity() {
+        MadgwickFilterBank bank = new MadgwickFilterBank(2);
+        for (int lane = 0; lane < 2; lane++) {
+            bank.Load(lane, new FMatrix3(0, 9.81f, 0), new FMatrix3(20, 0, -40), new FMatrix3(0.1f, 0, 0), 0.01);
+        }
+        bank.Update();
+        bank.Reset(0);
+        Quaternion q = bank.GetQuaternion(0, Quaternion.identity());
+        assertEquals(1f, q.w(), 0f);
+        assertEquals(0f, q.x(), 0f);
+        assertEquals(1.0, bank.GetQuaternion(1, Quaternion.identity()).w(), 0.1);
+    }
+}
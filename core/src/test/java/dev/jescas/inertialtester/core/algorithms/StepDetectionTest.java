@@ -0,0 +1,155 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StepDetectionTest {
+    // The former LinkedList<Double> implementation, kept as the behaviour reference
+    private static class ReferenceStepDetection {
+        private final LinkedList<Double> peakVector = new LinkedList<>();
+        private final LinkedList<Double> startVector = new LinkedList<>();
+        private final LinkedList<Double> endVector = new LinkedList<>();
+        private final double threshold;
+        private boolean onThreshold, onStart, onEnd;
+        private Double peak, start, end;
+        private long startTimestamp, endTimestamp;
+        private int peakIdxOffset, peakIdx, startIdx, stepsCounter;
+
+        ReferenceStepDetection(double threshold) {
+            this.threshold = threshold;
+        }
+
+        int GetSteps(double raw, long timestamp) {
+            if (DetectPeak(raw, timestamp)) {
+                double deltatime = (endTimestamp - startTimestamp) * 1e-9;
+                if (0.5 < deltatime && deltatime < 2.0) {
+                    stepsCounter++;
+                }
+            }
+            return stepsCounter;
+        }
+
+        boolean DetectPeak(double raw, long timestamp) {
+            if (!onEnd) {
+                peak = null;
+                end = null;
+            }
+            if (startVector.size() > 2) {
+                startVector.removeFirst();
+            }
+            startVector.add(raw);
+            if (endVector.size() > 1) {
+                endVector.removeFirst();
+            }
+            endVector.add(raw);
+            startIdx++;
+            if (!onStart && startVector.size() > 2 && startVector.get(2) > startVector.get(1) && startVector.get(1) > startVector.get(0)) {
+                start = raw;
+                startTimestamp = timestamp;
+                onStart = true;
+                startIdx = 0;
+            } else if (onStart && startVector.size() > 2 && startVector.get(2) < startVector.get(1) && startVector.get(1) < startVector.get(0)) {
+                onStart = false;
+            }
+            if (onEnd && endVector.size() > 1 && endVector.get(1) > endVector.get(0)) {
+                end = raw;
+                endTimestamp = timestamp;
+                peakIdx = startIdx - peakIdx;
+                onEnd = false;
+                return true;
+            }
+            if (!onThreshold && raw >= threshold) {
+                onThreshold = true;
+                peakIdxOffset = startIdx;
+            } else if (onThreshold) {
+                if (raw < threshold) {
+                    onThreshold = false;
+                    if (!peakVector.isEmpty()) {
+                        int argmax = 0;
+                        for (int i = 1; i < peakVector.size(); i++) {
+                            if (peakVector.get(i) > peakVector.get(argmax)) {
+                                argmax = i;
+                            }
+                        }
+                        peak = peakVector.get(argmax);
+                        peakIdx = peakIdxOffset + argmax;
+                        peakVector.clear();
+                        onEnd = true;
+                    }
+                }
+                if (raw >= threshold) {
+                    peakVector.add(raw);
+                }
+            }
+            return false;
+        }
+    }
+
+    private static double OrNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static long AllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Walking-like signal: 1-3 Hz bumps, noise and flat plateaus for ties
+    private static double Sample(Random random, int i) {
+        double value = Math.sin(2 * Math.PI * (1.5 + 0.5 * Math.sin(i * 1e-3)) * i / 100.0) + 0.02 * random.nextGaussian();
+        return i % 97 < 5 ? 0.75 : value;
+    }
+
+    @Test
+    public void matchesTheLinkedListImplementation() {
+        Random random = new Random(21);
+        StepDetection detection = new StepDetection(0.5);
+        ReferenceStepDetection reference = new ReferenceStepDetection(0.5);
+        int detections = 0;
+        for (int i = 0; i < 50_000; i++) {
+            double raw = Sample(random, i);
+            long timestamp = i * 10_000_000L;
+            assertEquals(reference.GetSteps(raw, timestamp), detection.GetSteps(raw, timestamp));
+            assertEquals(OrNaN(reference.peak), detection.GetPeak(), 0.0);
+            assertEquals(OrNaN(reference.start), detection.GetStart(), 0.0);
+            assertEquals(OrNaN(reference.end), detection.GetEnd(), 0.0);
+            assertEquals(reference.peakIdx, detection.GetPeakIndex());
+            assertEquals(reference.startIdx + 1, detection.GetStartIndex());
+            assertEquals(reference.startTimestamp, detection.GetStartTimestamp());
+            assertEquals(reference.endTimestamp, detection.GetEndTimestamp());
+            if (!Double.isNaN(detection.GetEnd())) {
+                detections++;
+            }
+        }
+        assertTrue(detections > 100);
+        assertTrue(detection.GetStepCount() > 50);
+    }
+
+    @Test
+    public void doesNotAllocate() {
+        Random random = new Random(4);
+        double[] signal = new double[20_000];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = Sample(random, i);
+        }
+        StepDetection detection = new StepDetection(0.5);
+        for (int i = 0; i < signal.length / 2; i++) {
+            detection.GetSteps(signal[i], i * 1_000_000L); // 1 kHz
+        }
+        long start = AllocatedBytes();
+        long overhead = AllocatedBytes() - start;
+        long before = AllocatedBytes();
+        for (int i = signal.length / 2; i < signal.length; i++) {
+            detection.GetSteps(signal[i], i * 1_000_000L);
+        }
+        assertEquals(0, AllocatedBytes() - before - overhead);
+    }
+}
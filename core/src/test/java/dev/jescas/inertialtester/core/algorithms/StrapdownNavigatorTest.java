@@ -0,0 +1,66 @@
+package dev.jescas.inertialtester.core.algorithms;
+
+import org.ejml.data.FMatrix3;
+import org.junit.Test;
+
+import java.util.Random;
+
+import dev.jescas.inertialtester.core.math.Quaternion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StrapdownNavigatorTest {
+    private static final double DT = 0.001; // 1 kHz
+
+    private static void Set(FMatrix3 dst, float x, float y, float z) {
+        dst.a1 = x;
+        dst.a2 = y;
+        dst.a3 = z;
+    }
+
+    @Test
+    public void integratesRotatedAcceleration() {
+        // Yawed 90 degrees: body X points to earth Y
+        Quaternion yaw = new Quaternion((float) Math.cos(Math.PI / 4), 0f, 0f, (float) Math.sin(Math.PI / 4));
+        StrapdownNavigator navigator = new StrapdownNavigator(500, 0.05, 0.2, 0.05);
+        FMatrix3 acc = new FMatrix3();
+        FMatrix3 gyro = new FMatrix3();
+        double w = 2 * Math.PI;
+        int samples = 1000;
+        for (int i = 1; i <= samples; i++) {
+            Set(acc, (float) Math.sin(w * i * DT), 0f, (float) StrapdownNavigator.GRAVITY);
+            navigator.Feed(yaw, acc, gyro, DT);
+        }
+        double t = samples * DT;
+        FMatrix3 position = navigator.GetPosition(new FMatrix3());
+        FMatrix3 velocity = navigator.GetVelocity(new FMatrix3());
+        // a = sin(wt): v = (1 - cos(wt)) / w, p = t / w - sin(wt) / w^2
+        assertEquals((1 - Math.cos(w * t)) / w, velocity.a2, 1e-4);
+        assertEquals(t / w - Math.sin(w * t) / (w * w), position.a2, 1e-4);
+        assertEquals(0.0, position.a1, 1e-4);
+        assertEquals(0.0, position.a3, 1e-4);
+    }
+
+    @Test
+    public void zeroVelocityUpdatesLearnTheBias() {
+        StrapdownNavigator navigator = new StrapdownNavigator(200, 0.1, 0.2, 0.05);
+        Quaternion level = Quaternion.identity();
+        FMatrix3 acc = new FMatrix3();
+        FMatrix3 gyro = new FMatrix3();
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            // Standing still with a 0.08 m/s^2 bias on X and sensor noise
+            Set(acc, (float) (0.08 + 0.01 * random.nextGaussian()), (float) (0.01 * random.nextGaussian()),
+                    (float) (StrapdownNavigator.GRAVITY + 0.01 * random.nextGaussian()));
+            Set(gyro, (float) (0.005 * random.nextGaussian()), 0f, 0f);
+            navigator.Feed(level, acc, gyro, DT);
+        }
+        assertTrue(navigator.IsStationary());
+        assertTrue(navigator.GetZeroVelocityUpdates() > 4000);
+        assertEquals(0.08, navigator.GetBias(new FMatrix3()).a1, 0.01);
+        // Only the first window, before the detector decides, drifts
+        assertTrue(navigator.GetHorizontalDistance() < 0.01);
+        assertEquals(0.0, navigator.GetHorizontalSpeed(), 0.0);
+    }
+}
@@ -0,0 +1,86 @@
+package dev.jescas.inertialtester.core.filters;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import dev.jescas.inertialtester.core.pipeline.PipelineConfig;
+
+import static org.junit.Assert.assertEquals;
+
+public class ButterWorthFilterTest {
+    private static final int SAMPLES = 5000;
+
+    // Textbook direct form I: y[n] = (sum b[i] x[n-i] - sum a[j] y[n-j]) / a[0]
+    private static double[] Reference(double[] a, double[] b, double[] x) {
+        double[] y = new double[x.length];
+        for (int n = 0; n < x.length; n++) {
+            double acc = 0;
+            for (int i = 0; i < b.length && i <= n; i++) {
+                acc += b[i] * x[n - i];
+            }
+            for (int j = 1; j < a.length && j <= n; j++) {
+                acc -= a[j] * y[n - j];
+            }
+            y[n] = acc / a[0];
+        }
+        return y;
+    }
+
+    private static double[] Noise() {
+        Random random = new Random(3);
+        double[] x = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            x[i] = Math.sin(0.05 * i) + random.nextGaussian();
+        }
+        return x;
+    }
+
+    private static void AssertMatchesReference(double[] a, double[] b) {
+        double[] x = Noise();
+        double[] expected = Reference(a, b, x);
+
+        ButterWorthFilter streaming = new ButterWorthFilter(a, b);
+        for (int i = 0; i < SAMPLES; i++) {
+            streaming.Update(x[i]);
+            assertEquals(expected[i], streaming.GetOutput(), 1e-9);
+        }
+
+        // Uneven blocks continue from the same state
+        ButterWorthFilter block = new ButterWorthFilter(a, b);
+        double[] y = new double[SAMPLES];
+        block.Process(x, y, 0, 1);
+        block.Process(x, y, 1, 1234);
+        block.Process(x, y, 1235, SAMPLES - 1235);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertEquals(expected[i], y[i], 1e-9);
+        }
+        assertEquals(y[SAMPLES - 1], block.GetOutput(), 0.0);
+    }
+
+    @Test
+    public void lowPassMatchesDirectForm() {
+        AssertMatchesReference(PipelineConfig.LOW_PASS_A, PipelineConfig.LOW_PASS_B);
+    }
+
+    @Test
+    public void highPassMatchesDirectForm() {
+        AssertMatchesReference(PipelineConfig.HIGH_PASS_A, PipelineConfig.HIGH_PASS_B);
+    }
+
+    @Test
+    public void genericOrderAndUnnormalizedCoefficients() {
+        // 4th order through the generic path, a[0] != 1
+        AssertMatchesReference(new double[]{2.0, -1.2, 0.5, -0.1, 0.02}, new double[]{0.1, 0.2, 0.1});
+    }
+
+    @Test
+    public void inPlaceBlock() {
+        double[] x = Noise();
+        double[] expected = Reference(PipelineConfig.LOW_PASS_A, PipelineConfig.LOW_PASS_B, x);
+        new ButterWorthFilter(PipelineConfig.LOW_PASS_A, PipelineConfig.LOW_PASS_B).Process(x, x, 0, SAMPLES);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertEquals(expected[i], x[i], 1e-9);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package dev.jescas.inertialtester.core.filters;
+
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class KalmantFilterTest {
+    // Textbook SimpleMatrix implementation of the [dynamic acceleration, bias] model
+    private static class ReferenceKalmanFilter {
+        private final SimpleMatrix F = SimpleMatrix.identity(2);
+        private final SimpleMatrix Q = new SimpleMatrix(new double[][]{{1e-4, 0}, {0, 1e-6}});
+        private final SimpleMatrix H = new SimpleMatrix(new double[][]{{1, 1}});
+        private final SimpleMatrix R = new SimpleMatrix(new double[][]{{1e-2}});
+        private SimpleMatrix X = new SimpleMatrix(new double[][]{{0}, {9.63}});
+        private SimpleMatrix P = SimpleMatrix.identity(2);
+
+        void Step(double raw) {
+            X = F.mult(X);
+            P = F.mult(P).mult(F.transpose()).plus(Q);
+            SimpleMatrix y = new SimpleMatrix(new double[][]{{raw}}).minus(H.mult(X));
+            SimpleMatrix S = H.mult(P).mult(H.transpose()).plus(R);
+            SimpleMatrix K = P.mult(H.transpose()).scale(1.0 / S.get(0, 0));
+            X = X.plus(K.mult(y));
+            P = SimpleMatrix.identity(2).minus(K.mult(H)).mult(P);
+        }
+    }
+
+    private static void AssertMatchesReference(IKalmanFilter filter) {
+        ReferenceKalmanFilter reference = new ReferenceKalmanFilter();
+        for (int i = 0; i < 2000; i++) {
+            double raw = 9.81 + 1.5 * Math.sin(i * 0.12) + 0.1 * Math.cos(i * 1.7);
+            reference.Step(raw);
+            filter.Predict();
+            filter.Update(raw);
+            assertEquals(reference.X.get(0, 0), filter.GetDynamicAcceleration(), 1e-9);
+            assertEquals(reference.X.get(1, 0), filter.GetBias(), 1e-9);
+        }
+    }
+
+    @Test
+    public void closedForm_matchesReference() {
+        AssertMatchesReference(new KalmantFilter());
+    }
+
+    @Test
+    public void fixedSize_matchesReference() {
+        AssertMatchesReference(new FixedKalmanFilter());
+    }
+}
@@ -0,0 +1,91 @@
+package dev.jescas.inertialtester.core.filters;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import dev.jescas.inertialtester.core.pipeline.PipelineConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZeroPhaseFilterTest {
+    private static final double[] A = PipelineConfig.LOW_PASS_A;
+    private static final double[] B = PipelineConfig.LOW_PASS_B;
+
+    // sum(b) / sum(a), not exactly 1 with rounded coefficients
+    private static double DcGain() {
+        double sumA = 0, sumB = 0;
+        for (double value : A) sumA += value;
+        for (double value : B) sumB += value;
+        return sumB / sumA;
+    }
+
+    // Index of the largest value in [from, to)
+    private static int ArgMax(double[] values, int from, int to) {
+        int best = from;
+        for (int i = from; i < to; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void steadyStateStartsWithoutTransient() {
+        ButterWorthFilter filter = new ButterWorthFilter(A, B);
+        filter.SetState(filter.GetSteadyState(new double[filter.GetOrder()]), 9.81);
+        for (int i = 0; i < 100; i++) {
+            filter.Update(9.81);
+            assertEquals(9.81 * DcGain(), filter.GetOutput(), 1e-9);
+        }
+    }
+
+    @Test
+    public void constantPassesUnchangedUpToTheEdges() {
+        double[] x = new double[300];
+        Arrays.fill(x, 3.5);
+        double[] y = new double[300];
+        new ZeroPhaseFilter(A, B).Filter(x, y, 0, x.length);
+        for (double value : y) {
+            // Both passes apply the DC gain
+            assertEquals(3.5 * DcGain() * DcGain(), value, 1e-9);
+        }
+    }
+
+    @Test
+    public void peaksStayInPlace() {
+        // 2 Hz steps sampled at 100 Hz, well inside the pass band
+        int n = 1000;
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = Math.sin(2 * Math.PI * 2 * i / 100.0);
+        }
+        double[] zeroPhase = new double[n];
+        new ZeroPhaseFilter(A, B).Filter(x, zeroPhase, 0, n);
+        double[] causal = new double[n];
+        new ButterWorthFilter(A, B).Process(x, causal, 0, n);
+
+        // Peak of the period starting at sample 500
+        int peak = ArgMax(x, 500, 550);
+        assertEquals(peak, ArgMax(zeroPhase, 500, 550));
+        assertTrue(ArgMax(causal, 500, 550) - peak >= 3);
+    }
+
+    @Test
+    public void callsAreIndependentAndShortSignalsArePadded() {
+        double[] x = {1, 4, 2, 8, 5, 7};
+        double[] first = new double[x.length];
+        double[] second = new double[x.length + 2];
+        ZeroPhaseFilter filter = new ZeroPhaseFilter(A, B);
+        filter.Filter(x, first, 0, x.length);
+        // Shorter than the 12 sample padding, offset, after another call
+        System.arraycopy(x, 0, second, 2, x.length);
+        filter.Filter(second, second, 2, x.length);
+        for (int i = 0; i < x.length; i++) {
+            assertTrue(Double.isFinite(first[i]));
+            assertEquals(first[i], second[i + 2], 0.0);
+        }
+    }
+}
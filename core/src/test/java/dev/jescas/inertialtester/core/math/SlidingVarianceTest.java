@@ -0,0 +1,58 @@
+package dev.jescas.inertialtester.core.math;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlidingVarianceTest {
+
+    private static double[] Naive(double[] values, int end, int windowSize) {
+        int start = Math.max(0, end - windowSize);
+        double mean = 0.0;
+        for (int i = start; i < end; i++) {
+            mean += values[i];
+        }
+        mean /= end - start;
+        double variance = 0.0;
+        for (int i = start; i < end; i++) {
+            variance += Math.pow(values[i] - mean, 2);
+        }
+        return new double[]{mean, variance / (end - start)};
+    }
+
+    @Test
+    public void matchesTwoPassComputation() {
+        Random random = new Random(11);
+        double[] values = new double[20_000];
+        for (int i = 0; i < values.length; i++) {
+            // Large offset and changing scale, the hard case for running sums
+            values[i] = 9.81 + (i / 5000 + 1) * 0.1 * random.nextGaussian();
+        }
+        for (int windowSize : new int[]{1, 10, 400}) {
+            SlidingVariance window = new SlidingVariance(windowSize);
+            for (int i = 0; i < values.length; i++) {
+                window.Add(values[i]);
+                double[] expected = Naive(values, i + 1, windowSize);
+                assertEquals(expected[0], window.GetMean(), 1e-9);
+                assertEquals(expected[1], window.GetVariance(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void reportsFullWindowOnly() {
+        SlidingVariance window = new SlidingVariance(3);
+        window.Add(1.0);
+        window.Add(2.0);
+        assertFalse(window.IsFull());
+        window.Add(3.0);
+        assertTrue(window.IsFull());
+        window.Add(3.0);
+        window.Add(3.0);
+        assertEquals(0.0, window.GetVariance(), 1e-12);
+    }
+}
@@ -0,0 +1,53 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncRecordWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendedRecords_areWrittenInOrder() throws IOException {
+        File file = folder.newFile("accel_data_test.bin");
+        AsyncRecordWriter writer = new AsyncRecordWriter(file, new WriterOptions(64, 1024, 1000, WriterOptions.FSYNC_EVERY_BLOCK, 1000));
+        long accepted = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (writer.Append(SensorType.ACCELEROMETER, i, i, -i, 0.5f * i)) {
+                accepted++;
+            } else {
+                Thread.yield();
+            }
+        }
+        writer.Close();
+
+        assertEquals(100_000, writer.GetOfferedCount());
+        assertEquals(accepted, writer.GetWrittenCount());
+        assertEquals(100_000 - accepted, writer.GetDroppedCount());
+        assertFalse(writer.Append(SensorType.ACCELEROMETER, 0, 0, 0, 0));
+
+        float[] values = new float[3];
+        long previous = -1;
+        long read = 0;
+        try (RecordingReader reader = new RecordingReader(file, SensorType.ACCELEROMETER)) {
+            while (reader.Next()) {
+                reader.GetValues(values);
+                long index = reader.GetTimestamp() / 1_000_000L;
+                assertTrue(index > previous);
+                assertEquals((float) index, values[0], 0f);
+                assertEquals((float) -index, values[1], 0f);
+                previous = index;
+                read++;
+            }
+        }
+        assertEquals(accepted, read);
+    }
+}
@@ -0,0 +1,187 @@
+package dev.jescas.inertialtester.core.persistance;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SessionFileTest {
+    private static final int[] SENSORS = {SensorType.ACCELEROMETER, SensorType.GYROSCOPE, SensorType.MAGNETIC_FIELD};
+    private static final int RECORDS = 30_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File Record() throws IOException {
+        // Small blocks so the index has many entries
+        WriterOptions options = new WriterOptions(1 << 16, 1024, 1000, WriterOptions.FSYNC_NEVER, 1000);
+        SessionFileWriter writer = new SessionFileWriter(folder.getRoot(), SENSORS, new int[]{20000, 20000, 20000},
+                "test device", options);
+        float[] values = new float[3];
+        for (int i = 0; i < RECORDS; i++) {
+            values[0] = i;
+            values[1] = -i;
+            values[2] = 0.5f;
+            assertTrue(writer.AppendData(SENSORS[i % 3], 1_000_000_000L + 1_000_000L * i, values));
+        }
+        writer.CloseStream();
+        assertEquals(RECORDS, writer.GetWrittenCount());
+        return writer.GetFile();
+    }
+
+    @Test
+    public void session_roundTrips() throws IOException {
+        File file = Record();
+        float[] values = new float[3];
+        try (SessionFileReader reader = new SessionFileReader(file)) {
+            SessionHeader header = reader.GetHeader();
+            assertEquals("test device", header.deviceInfo);
+            assertEquals(20000, header.GetSamplingPeriodUs(SensorType.GYROSCOPE));
+            assertEquals(RECORDS, reader.GetRecordCount());
+            assertTrue(reader.GetBlockCount() > 1);
+            for (int i = 0; i < RECORDS; i++) {
+                assertTrue(reader.Next());
+                reader.GetValues(values);
+                assertEquals(SENSORS[i % 3], reader.GetSensorType());
+                assertEquals(1_000_000_000L + 1_000_000L * i, reader.GetTimestamp());
+                assertEquals(i, values[0], 0f);
+            }
+            assertFalse(reader.Next());
+        }
+    }
+
+    @Test
+    public void sessionsStartedTogether_getTheirOwnFile() throws IOException {
+        File directory = folder.newFolder();
+        WriterOptions options = new WriterOptions(1 << 10, 256, 1000, WriterOptions.FSYNC_NEVER, 1000);
+        int[] periods = {20000, 20000, 20000};
+        // Same second: the second writer must not append to the first file
+        SessionFileWriter first = new SessionFileWriter(directory, SENSORS, periods, "first", options);
+        SessionFileWriter second = new SessionFileWriter(directory, SENSORS, periods, "second", options);
+        assertNotEquals(first.GetFile(), second.GetFile());
+        float[] values = {1, 2, 3};
+        for (int i = 0; i < 1000; i++) {
+            first.AppendData(SENSORS[i % 3], 1_000_000L * i, values);
+            second.AppendData(SENSORS[i % 3], 1_000_000L * i, values);
+        }
+        first.CloseStream();
+        second.CloseStream();
+        String[] devices = {"first", "second"};
+        SessionFileWriter[] writers = {first, second};
+        for (int w = 0; w < writers.length; w++) {
+            try (SessionFileReader reader = new SessionFileReader(writers[w].GetFile())) {
+                assertEquals(devices[w], reader.GetHeader().deviceInfo);
+                assertEquals(1000, reader.GetRecordCount());
+                assertTrue(reader.GetBlockCount() > 1);
+                assertTrue(reader.Seek(1_000_000L * 500));
+                assertTrue(reader.Next());
+                assertEquals(500, reader.GetPosition());
+            }
+        }
+    }
+
+    @Test
+    public void seek_usesBlockIndex() throws IOException {
+        File file = Record();
+        try (SessionFileReader reader = new SessionFileReader(file)) {
+            assertTrue(reader.Seek(1_000_000_000L + 1_000_000L * 12_345));
+            assertTrue(reader.Next());
+            assertEquals(12_345, reader.GetPosition());
+            assertFalse(reader.Seek(Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void truncatedSession_isReadableWithoutIndex() throws IOException {
+        File file = Record();
+        int headerLength;
+        try (SessionFileReader reader = new SessionFileReader(file)) {
+            headerLength = reader.GetHeader().GetLength();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Cut the index and half of a record, as if the app died while recording
+            raf.setLength(headerLength + 10_000L * SessionHeader.RECORD_SIZE + SessionHeader.RECORD_SIZE / 2);
+        }
+        try (SessionFileReader reader = new SessionFileReader(file)) {
+            assertEquals(0, reader.GetBlockCount());
+            long records = 0;
+            while (reader.Next()) {
+                assertEquals(1_000_000_000L + 1_000_000L * records, reader.GetTimestamp());
+                records++;
+            }
+            assertEquals(10_000, records);
+        }
+    }
+
+    @Test
+    public void compressedSession_roundTripsExactly() throws IOException {
+        WriterOptions options = new WriterOptions(1 << 16, 4096, 1000, WriterOptions.FSYNC_NEVER, 1000);
+        SessionFileWriter writer = new SessionFileWriter(folder.newFolder(), SENSORS, new int[]{20000, 20000, 20000},
+                "test device", options, true);
+        // Jittered timestamps, noisy values and a sensor missing from the header
+        Random random = new Random(7);
+        int[] types = new int[RECORDS];
+        long[] timestamps = new long[RECORDS];
+        float[] values = new float[3 * RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            types[i] = i % 100 == 99 ? 42 : SENSORS[i % 3];
+            timestamps[i] = 1_000_000_000L + 6_666_667L * i + random.nextInt(20_000);
+            values[3 * i] = (float) (0.3 * Math.sin(i * 0.01) + 0.05 * random.nextGaussian());
+            values[3 * i + 1] = i % 500 == 0 ? Float.NaN : (float) random.nextGaussian();
+            values[3 * i + 2] = 9.81f;
+            assertTrue(writer.AppendData(types[i], timestamps[i], new float[]{values[3 * i], values[3 * i + 1], values[3 * i + 2]}));
+        }
+        writer.CloseStream();
+        File file = writer.GetFile();
+        assertTrue(file.length() < (long) RECORDS * SessionHeader.RECORD_SIZE);
+
+        float[] read = new float[3];
+        try (SessionFileReader reader = new SessionFileReader(file)) {
+            assertTrue(reader.GetHeader().IsCompressed());
+            assertEquals(RECORDS, reader.GetRecordCount());
+            for (int i = 0; i < RECORDS; i++) {
+                assertTrue(reader.Next());
+                reader.GetValues(read);
+                assertEquals(types[i], reader.GetSensorType());
+                assertEquals(timestamps[i], reader.GetTimestamp());
+                for (int axis = 0; axis < 3; axis++) {
+                    assertEquals(Float.floatToRawIntBits(values[3 * i + axis]), Float.floatToRawIntBits(read[axis]));
+                }
+            }
+            assertFalse(reader.Next());
+
+            // Blocks decode independently
+            SessionBlock block = new SessionBlock(16);
+            int last = reader.GetBlockCount() - 1;
+            reader.ReadBlock(last, block);
+            assertEquals(reader.GetBlockRecordCount(last), block.Size());
+            assertEquals(timestamps[RECORDS - 1], block.GetTimestamp(block.Size() - 1));
+
+            assertTrue(reader.Seek(timestamps[12_345]));
+            assertTrue(reader.Next());
+            assertEquals(12_345, reader.GetPosition());
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() / 2);
+        }
+        try (SessionFileReader reader = new SessionFileReader(file)) {
+            assertTrue(reader.GetBlockCount() > 0);
+            long records = 0;
+            while (reader.Next()) {
+                assertEquals(timestamps[(int) records], reader.GetTimestamp());
+                records++;
+            }
+            assertEquals(reader.GetRecordCount(), records);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import org.ejml.data.FMatrix3;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import dev.jescas.inertialtester.core.persistance.SensorType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SensorIngestTest {
+    private static final int EVENTS = 300_000;
+    private static final int[] TYPES = {SensorType.ACCELEROMETER, SensorType.GYROSCOPE, SensorType.MAGNETIC_FIELD};
+    private static final String[] ESTIMATORS = {PipelineConfig.MADGWICK, PipelineConfig.FQA, PipelineConfig.EKF};
+
+    // Default chain, counting the samples it runs
+    private static class CountingPipeline extends FusionPipeline {
+        int steps;
+
+        CountingPipeline(String estimator) {
+            super(estimator);
+        }
+
+        @Override
+        public void Process(FMatrix3 acc, FMatrix3 mag, FMatrix3 gyro, double dt, long timestamp) {
+            steps++;
+            super.Process(acc, mag, gyro, dt, timestamp);
+        }
+    }
+
+    private static long AllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void Feed(SensorIngest ingest, float[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int type = TYPES[i % 3];
+            float wobble = 0.1f * (i % 20);
+            if (type == SensorType.ACCELEROMETER) {
+                values[0] = wobble;
+                values[1] = 0.5f;
+                values[2] = 9.81f;
+            } else if (type == SensorType.GYROSCOPE) {
+                values[0] = 0.01f * wobble;
+                values[1] = 0;
+                values[2] = 0.02f;
+            } else {
+                values[0] = 20 + wobble;
+                values[1] = 0;
+                values[2] = -40;
+            }
+            ingest.OnSample(type, 20_000_000L * (i / 3), values);
+        }
+    }
+
+    @Test
+    public void ingest_copiesValuesAndTriggersOnMagnetometer() {
+        CountingPipeline pipeline = new CountingPipeline(PipelineConfig.MADGWICK);
+        SensorIngest ingest = new SensorIngest(pipeline);
+        float[] values = new float[3];
+        Feed(ingest, values, 0, 30);
+        assertEquals(10, pipeline.steps);
+        assertEquals(0.02, pipeline.GetFrame().values[Channel.DT], 1e-12);
+
+        // Reusing the event array must not change the accelerometer sample already stored
+        values[0] = 0;
+        values[1] = 0;
+        values[2] = 9.81f;
+        ingest.OnSample(SensorType.ACCELEROMETER, 200_000_000L, values);
+        values[2] = -1f;
+        ingest.OnSample(SensorType.GYROSCOPE, 200_000_000L, values);
+        ingest.OnSample(SensorType.MAGNETIC_FIELD, 200_000_000L, values);
+        double[] frame = pipeline.GetFrame().values;
+        assertEquals(11, pipeline.steps);
+        assertEquals(9.81f, frame[Channel.ACC_Z], 0.0);
+        assertEquals(-1f, frame[Channel.GYRO_Z], 0.0);
+        assertEquals(-1f, frame[Channel.MAG_Z], 0.0);
+    }
+
+    @Test
+    public void ingest_doesNotAllocateInSteadyState() {
+        for (String estimator : ESTIMATORS) {
+            CountingPipeline pipeline = new CountingPipeline(estimator);
+            SensorIngest ingest = new SensorIngest(pipeline);
+            float[] values = new float[3];
+            Feed(ingest, values, 0, EVENTS); // Warm up
+
+            // The measurement itself may allocate, subtract it
+            long start = AllocatedBytes();
+            long overhead = AllocatedBytes() - start;
+            long before = AllocatedBytes();
+            Feed(ingest, values, EVENTS, 2 * EVENTS);
+            long allocated = AllocatedBytes() - before - overhead;
+
+            assertEquals(2 * EVENTS / 3, pipeline.steps);
+            assertFalse(estimator, Double.isNaN(pipeline.GetFrame().values[Channel.Q_W]));
+            assertEquals(estimator, 0, allocated);
+        }
+    }
+}
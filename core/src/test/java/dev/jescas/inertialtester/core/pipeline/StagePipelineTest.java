@@ -0,0 +1,93 @@
+package dev.jescas.inertialtester.core.pipeline;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class StagePipelineTest {
+    private static final int SAMPLES = 2000;
+
+    // Walking with the phone flat, same shape as the benchmark stream
+    private static FrameBlock Walk() {
+        FrameBlock block = new FrameBlock(SAMPLES);
+        Random random = new Random(11);
+        for (int i = 0; i < SAMPLES; i++) {
+            double t = i * 0.01;
+            block.Get(Channel.ACC_X)[i] = 0.3 * Math.sin(2 * Math.PI * t) + 0.05 * random.nextGaussian();
+            block.Get(Channel.ACC_Y)[i] = 0.3 * Math.cos(2 * Math.PI * t) + 0.05 * random.nextGaussian();
+            block.Get(Channel.ACC_Z)[i] = 9.81 + 1.5 * Math.sin(2 * Math.PI * 2 * t) + 0.05 * random.nextGaussian();
+            block.Get(Channel.GYRO_Z)[i] = 0.1 + 0.01 * random.nextGaussian();
+            block.Get(Channel.MAG_X)[i] = 20 * Math.cos(0.1 * t);
+            block.Get(Channel.MAG_Y)[i] = -20 * Math.sin(0.1 * t);
+            block.Get(Channel.MAG_Z)[i] = -40;
+            block.Get(Channel.DT)[i] = 0.01;
+            block.GetTimestamps()[i] = i * 10_000_000L;
+        }
+        return block;
+    }
+
+    @Test
+    public void blockModeMatchesStreaming() {
+        for (String estimator : new String[]{PipelineConfig.MADGWICK, PipelineConfig.EKF, PipelineConfig.FQA}) {
+            String config = PipelineConfig.Default(estimator);
+            FrameBlock streamed = Walk();
+            StagePipeline streaming = PipelineConfig.Parse(config);
+            SampleFrame frame = new SampleFrame();
+            for (int i = 0; i < SAMPLES; i++) {
+                streamed.Load(i, frame);
+                streaming.Process(frame);
+                streamed.Store(frame, i);
+            }
+
+            FrameBlock block = Walk();
+            StagePipeline blocked = PipelineConfig.Parse(config);
+            // Uneven chunks, state carries over between calls
+            blocked.ProcessBlock(block, 0, 777);
+            blocked.ProcessBlock(block, 777, SAMPLES - 777);
+
+            for (int c = 0; c < Channel.COUNT; c++) {
+                for (int i = 0; i < SAMPLES; i++) {
+                    assertEquals(estimator + " " + Channel.Name(c) + "[" + i + "]",
+                            streamed.Get(c)[i], block.Get(c)[i], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void defaultChainCountsSteps() {
+        FusionPipeline pipeline = new FusionPipeline();
+        FrameBlock block = Walk();
+        SampleFrame frame = new SampleFrame();
+        for (int i = 0; i < SAMPLES; i++) {
+            block.Load(i, frame);
+            pipeline.GetStages().Process(frame);
+        }
+        assertNotNull(pipeline.GetNavigator());
+        assertNotNull(pipeline.GetOrientationEstimator());
+        assertTrue(frame.values[Channel.STEPS] > 0);
+        // One dead reckoning step per detected step
+        assertEquals((int) frame.values[Channel.STEPS], pipeline.GetPdr().Size());
+        assertEquals(pipeline.GetPdr().GetX(), frame.values[Channel.PDR_X], 0.0);
+        assertTrue(frame.values[Channel.STEP_LENGTH] > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownStageIsRejected() {
+        PipelineConfig.Parse("rotate; smooth in=ACC_NORM");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownParameterIsRejected() {
+        PipelineConfig.Parse("norm in=EARTH_ACC_X out=ACC_NORM gain=2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownChannelIsRejected() {
+        PipelineConfig.Parse("lowpass in=DYNAMIC out=FILTERED_ACC");
+    }
+}
@@ -0,0 +1,174 @@
+package dev.jescas.inertialtester.core.replay;
+
+import org.ejml.data.FMatrix3;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dev.jescas.inertialtester.core.persistance.LegacyRecordingSource;
+import dev.jescas.inertialtester.core.pipeline.Channel;
+import dev.jescas.inertialtester.core.pipeline.FrameBlock;
+import dev.jescas.inertialtester.core.pipeline.FusionPipeline;
+import dev.jescas.inertialtester.core.pipeline.PipelineConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SessionReplayTest {
+    private static final int SAMPLES = 500;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static float[] Sample(int sensor, int i) {
+        double t = i * 0.02;
+        switch (sensor) {
+            case 0:
+                return new float[]{(float) (0.2 * Math.sin(t)), 0.1f, (float) (9.81 + 1.5 * Math.sin(4 * Math.PI * t))};
+            case 1:
+                return new float[]{0.01f, -0.02f, (float) (0.1 * Math.cos(t))};
+            default:
+                return new float[]{(float) (20 * Math.cos(0.1 * t)), (float) (-20 * Math.sin(0.1 * t)), -40f};
+        }
+    }
+
+    private File Write(String name, int sensor) throws IOException {
+        File file = folder.newFile(name);
+        ByteBuffer buffer = ByteBuffer.allocate(SAMPLES * 20).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < SAMPLES; i++) {
+            buffer.putLong(1_000_000L + i * 20L);
+            for (float value : Sample(sensor, i)) buffer.putFloat(value);
+        }
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(buffer.array());
+        }
+        return file;
+    }
+
+    @Test
+    public void replay_matchesLivePipeline() throws IOException {
+        File accFile = Write("accel_data_test.bin", 0);
+        Write("gyro_data_test.bin", 1);
+        Write("mag_data_test.bin", 2);
+
+        // Drive the pipeline the way MainPresenter does
+        FusionPipeline live = new FusionPipeline();
+        long prev = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            long timestamp = (1_000_000L + i * 20L) * 1_000_000L;
+            double dt = (timestamp - prev) * 1e-9;
+            if (dt <= 1.0) {
+                float[] a = Sample(0, i), g = Sample(1, i), m = Sample(2, i);
+                live.Process(new FMatrix3(a[0], a[1], a[2]), new FMatrix3(m[0], m[1], m[2]),
+                        new FMatrix3(g[0], g[1], g[2]), dt, timestamp);
+            }
+            prev = timestamp;
+        }
+
+        FusionPipeline replayed = new FusionPipeline();
+        long processed;
+        try (LegacyRecordingSource source = LegacyRecordingSource.Open(accFile)) {
+            processed = new SessionReplay(source, replayed).Run(null);
+        }
+
+        assertEquals(SAMPLES - 1, processed);
+        assertEquals(live.GetAcceleration(), replayed.GetAcceleration(), 0.0);
+        assertEquals(live.GetSteps(), replayed.GetSteps());
+        assertEquals(live.GetEulerAngles().a3, replayed.GetEulerAngles().a3, 0.0);
+    }
+
+    @Test
+    public void zeroPhaseAnalysis_runsTheChainInBlockMode() throws IOException {
+        File accFile = Write("accel_data_test.bin", 0);
+        Write("gyro_data_test.bin", 1);
+        Write("mag_data_test.bin", 2);
+
+        FusionPipeline replayed = new FusionPipeline();
+        try (LegacyRecordingSource source = LegacyRecordingSource.Open(accFile)) {
+            new SessionReplay(source, replayed).Run(null);
+        }
+
+        ZeroPhaseAnalysis analysis = new ZeroPhaseAnalysis();
+        List<ZeroPhaseAnalysis.Result> results = analysis.AnalyzeAll(Arrays.asList(accFile, accFile));
+        assertEquals(2, results.size());
+        ZeroPhaseAnalysis.Result result = results.get(0);
+        assertEquals(SAMPLES - 1, result.size);
+        assertEquals(ZeroPhaseAnalysis.DEFAULT_CHANNELS.length, result.traces.length);
+        assertEquals(result.traces[0][100], results.get(1).traces[0][100], 0.0);
+
+        // Block mode reproduces the streaming chain
+        try (LegacyRecordingSource source = LegacyRecordingSource.Open(accFile)) {
+            FrameBlock block = analysis.Load(source);
+            assertEquals(replayed.GetAcceleration(), block.Get(Channel.FILTERED_ACC)[block.GetSize() - 1], 0.0);
+            assertEquals(replayed.GetSteps(), (int) block.Get(Channel.STEPS)[block.GetSize() - 1]);
+        }
+    }
+
+    @Test
+    public void batchProcessor_replaysSessionsIndependently() throws IOException {
+        List<File> sessions = new ArrayList<>();
+        for (String suffix : new String[]{"_a", "_b", "_c", "_d", "_e"}) {
+            sessions.add(Write("accel_data" + suffix + ".bin", 0));
+            Write("gyro_data" + suffix + ".bin", 1);
+            Write("mag_data" + suffix + ".bin", 2);
+        }
+        sessions.add(new File(folder.getRoot(), "accel_data_missing.bin"));
+
+        File reference = folder.newFile("reference.csv");
+        try (LegacyRecordingSource source = LegacyRecordingSource.Open(sessions.get(0));
+             ReplayCsvWriter writer = new ReplayCsvWriter(reference)) {
+            new SessionReplay(source, new FusionPipeline()).Run(writer);
+        }
+        List<String> expected = Files.readAllLines(reference.toPath());
+
+        File out = folder.newFolder("out");
+        BatchProcessor.Report report = new BatchProcessor(PipelineConfig.Default(PipelineConfig.MADGWICK), out)
+                .Run(sessions, 3);
+        assertEquals(sessions.size(), report.sessions.size());
+        assertEquals(1, report.failures);
+        assertEquals(5L * (SAMPLES - 1), report.samples);
+        assertTrue(report.SamplesPerSecond() > 0);
+        for (int i = 0; i < 5; i++) {
+            BatchProcessor.SessionResult result = report.sessions.get(i);
+            assertEquals(sessions.get(i), result.session);
+            assertNull(result.error);
+            // Same session, same chain: concurrent runs must not share any state
+            assertEquals(expected, Files.readAllLines(result.output.toPath()));
+        }
+        assertNotNull(report.sessions.get(5).error);
+    }
+
+    @Test
+    public void batchProcessor_keepsSameNamedSessionsApart() throws IOException {
+        // Two devices recording the same second
+        List<File> sessions = new ArrayList<>();
+        for (String device : new String[]{"phone", "watch"}) {
+            folder.newFolder(device);
+            sessions.add(Write(device + "/accel_data_same.bin", 0));
+            Write(device + "/gyro_data_same.bin", 1);
+            Write(device + "/mag_data_same.bin", 2);
+        }
+        File out = folder.newFolder("out");
+        BatchProcessor.Report report = new BatchProcessor(PipelineConfig.Default(PipelineConfig.MADGWICK), out)
+                .Run(sessions, 2);
+        assertEquals(0, report.failures);
+        File first = report.sessions.get(0).output;
+        File second = report.sessions.get(1).output;
+        assertEquals(new File(out, "accel_data_same.csv"), first);
+        assertEquals(new File(out, "accel_data_same_1.csv"), second);
+        assertEquals(Files.readAllLines(first.toPath()), Files.readAllLines(second.toPath()));
+        assertEquals(SAMPLES, Files.readAllLines(second.toPath()).size());
+    }
+}
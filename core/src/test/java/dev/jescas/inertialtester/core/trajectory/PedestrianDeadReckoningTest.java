@@ -0,0 +1,56 @@
+package dev.jescas.inertialtester.core.trajectory;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PedestrianDeadReckoningTest {
+    @Test
+    public void stepLength_followsWeinberg() {
+        PedestrianDeadReckoning pdr = new PedestrianDeadReckoning(0.5, 0.8);
+        assertEquals(0.5 * Math.pow(3.0, 0.25), pdr.StepLength(1.5, -1.5), 1e-12);
+        // Larger swings, longer steps
+        assertEquals(0.5 * Math.pow(6.0, 0.25), pdr.StepLength(4.0, -2.0), 1e-12);
+        // Unknown extremes fall back, implausible ones are clamped
+        assertEquals(0.8, pdr.StepLength(Double.NaN, Double.NaN), 0.0);
+        assertEquals(0.8, pdr.StepLength(1.0, 1.0), 0.0);
+        assertEquals(0.2, pdr.StepLength(1e-6, 0.0), 0.0);
+        assertEquals(1.6, pdr.StepLength(1e4, 0.0), 0.0);
+    }
+
+    @Test
+    public void onStep_walksAlongHeading() {
+        PedestrianDeadReckoning pdr = new PedestrianDeadReckoning();
+        // A 10 x 10 step square comes back to the start
+        double[] headings = {0, Math.PI / 2, Math.PI, -Math.PI / 2};
+        for (int side = 0; side < 4; side++) {
+            for (int i = 0; i < 10; i++) {
+                pdr.OnStep(1.5, -1.5, headings[side], (side * 10 + i) * 500_000_000L);
+            }
+            if (side == 0) {
+                assertEquals(10 * pdr.StepLength(1.5, -1.5), pdr.GetX(), 1e-9);
+                assertEquals(0, pdr.GetY(), 1e-9);
+            }
+        }
+        assertEquals(40, pdr.Size());
+        assertEquals(0, pdr.GetX(), 1e-9);
+        assertEquals(0, pdr.GetY(), 1e-9);
+        assertEquals(40 * pdr.StepLength(1.5, -1.5), pdr.GetDistance(), 1e-9);
+        assertEquals(pdr.GetX(9), pdr.GetX(10) - pdr.GetLength(10) * Math.cos(pdr.GetHeading(10)), 1e-9);
+        assertEquals(39 * 500_000_000L, pdr.GetTimestamp(39));
+    }
+
+    @Test
+    public void track_growsPastInitialCapacity() {
+        PedestrianDeadReckoning pdr = new PedestrianDeadReckoning();
+        for (int i = 0; i < 10_000; i++) {
+            pdr.OnStep(Double.NaN, Double.NaN, 0, i);
+        }
+        assertEquals(10_000, pdr.Size());
+        assertEquals(10_000 * PedestrianDeadReckoning.DEFAULT_STEP_LENGTH, pdr.GetX(), 1e-6);
+        assertEquals(5_000 * PedestrianDeadReckoning.DEFAULT_STEP_LENGTH, pdr.GetX(4_999), 1e-6);
+        pdr.Clear();
+        assertEquals(0, pdr.Size());
+        assertEquals(0, pdr.GetX(), 0.0);
+    }
+}
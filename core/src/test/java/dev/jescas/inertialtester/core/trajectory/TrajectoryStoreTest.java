@@ -0,0 +1,77 @@
+package dev.jescas.inertialtester.core.trajectory;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrajectoryStoreTest {
+    private static final int STEPS = 50_000;
+    private static final double STEP_LENGTH = 0.7;
+
+    private static TrajectoryStore Walk() {
+        TrajectoryStore store = new TrajectoryStore(0.05);
+        Random random = new Random(3);
+        double x = 0, y = 0, heading = 0;
+        for (int i = 0; i < STEPS; i++) {
+            heading += 0.3 * random.nextGaussian();
+            x += STEP_LENGTH * Math.cos(heading);
+            y += STEP_LENGTH * Math.sin(heading);
+            store.Append(x, y);
+        }
+        return store;
+    }
+
+    @Test
+    public void append_keepsEveryPosition() {
+        TrajectoryStore store = Walk();
+        assertEquals(STEPS, store.Size());
+        for (int i = 0; i < STEPS; i++) {
+            assertTrue(store.GetX(i) >= store.GetMinX() && store.GetX(i) <= store.GetMaxX());
+            assertTrue(store.GetY(i) >= store.GetMinY() && store.GetY(i) <= store.GetMaxY());
+        }
+    }
+
+    @Test
+    public void query_isBoundedSortedAndCoversThePath() {
+        TrajectoryStore store = Walk();
+        int budget = 2000;
+        float[] xs = new float[budget];
+        float[] ys = new float[budget];
+        int count = store.Query(store.GetMinX(), store.GetMaxX(), store.GetMinY(), store.GetMaxY(), budget, xs, ys);
+
+        assertTrue(count > 0 && count <= budget);
+        for (int i = 1; i < count; i++) {
+            assertTrue(xs[i - 1] <= xs[i]);
+        }
+        // Every position is close to a drawn point
+        double coarsest = 0;
+        for (int i = 0; i < STEPS; i += 97) {
+            double best = Double.MAX_VALUE;
+            for (int k = 0; k < count; k++) {
+                best = Math.min(best, Math.hypot(xs[k] - store.GetX(i), ys[k] - store.GetY(i)));
+            }
+            coarsest = Math.max(coarsest, best);
+        }
+        double extent = Math.max(store.GetMaxX() - store.GetMinX(), store.GetMaxY() - store.GetMinY());
+        assertTrue(coarsest < extent / 20);
+    }
+
+    @Test
+    public void query_zoomedViewportUsesFinerCells() {
+        TrajectoryStore store = Walk();
+        float[] xs = new float[500];
+        float[] ys = new float[500];
+        double x = store.GetX(STEPS / 2), y = store.GetY(STEPS / 2);
+        int count = store.Query(x - 5, x + 5, y - 5, y + 5, 500, xs, ys);
+        assertTrue(count > 0);
+        double nearest = Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            assertTrue(Math.abs(xs[i] - x) <= 6 && Math.abs(ys[i] - y) <= 6);
+            nearest = Math.min(nearest, Math.hypot(xs[i] - x, ys[i] - y));
+        }
+        assertTrue(nearest < 0.5);
+    }
+}
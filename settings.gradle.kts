@@ -24,3 +24,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "InertialTester"
 include(":app")
+include(":core")
+include(":benchmark")